@@ -0,0 +1,396 @@
+package com.soa.gateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache phản hồi GET (status, header và body) trong bộ nhớ của gateway, theo route + path + query.
+ * <p>
+ * Khai báo trên route: {@code - ResponseCache=10s}, với 10s là thời gian lưu tối đa của route. Cache-Control được
+ * tôn trọng: phản hồi no-store/no-cache/private không được lưu, s-maxage/max-age rút ngắn thời gian lưu; request
+ * no-store bỏ qua cache, request no-cache hoặc max-age=0 lấy bản mới từ service rồi lưu lại. Phản hồi
+ * text/event-stream và phản hồi lớn hơn max-entry-size chỉ được chuyển tiếp.
+ * <p>
+ * POST/PUT/PATCH/DELETE đi qua route chỉ làm mất hiệu lực các mục bị ảnh hưởng. Với {@code item-path}
+ * (ví dụ {@code /api/products/{id:\d+}/**}), ghi vào một item chỉ xóa các mục của item đó cùng các mục không thuộc
+ * item nào (danh sách, tìm kiếm); ghi vào path khác xóa cả route. Request thuộc {@code excluded-paths} không đi qua
+ * cache và không xóa gì. Thay đổi không đi qua gateway, ví dụ Order Service giữ hàng trực tiếp, chỉ hiện ra sau khi
+ * mục hết hạn.
+ * <p>
+ * Mục cache không bị xóa ngay mà được đánh dấu thời điểm: mục lưu trước lần ghi gần nhất của nhóm nó thuộc về thì
+ * bị bỏ khi tra cứu, nên mỗi lần ghi chỉ tốn O(1) thay vì duyệt toàn bộ key.
+ */
+@Component
+public class ResponseCacheGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+    // Chạy trước NettyWriteResponseFilter để bọc được response trước khi body được ghi ra
+    public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+
+    private static final Logger log = LoggerFactory.getLogger(ResponseCacheGatewayFilterFactory.class);
+
+    // Header gắn với từng kết nối/lần trả lời, không lưu cùng mục cache
+    private static final Set<String> UNCACHED_HEADERS = Set.of("connection", "keep-alive", "transfer-encoding",
+            "content-length", "date", "age", "set-cookie", "x-cache");
+
+    private final Cache<String, CachedResponse> cache;
+    private final long maxEntryBytes;
+
+    public ResponseCacheGatewayFilterFactory(MeterRegistry meterRegistry,
+                                             @Value("${gateway.response-cache.max-size:64MB}") DataSize maxSize,
+                                             @Value("${gateway.response-cache.max-entry-size:1MB}") DataSize maxEntrySize) {
+        super(Config.class);
+        this.maxEntryBytes = maxEntrySize.toBytes();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String key, CachedResponse value) -> value.weight(key))
+                .expireAfter(new Expiry<String, CachedResponse>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedResponse value, long currentTime) {
+                        return value.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedResponse value, long currentTime,
+                                                  long currentDuration) {
+                        return value.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedResponse value, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.responses");
+        Gauge.builder("gateway.response.cache.bytes", cache,
+                        c -> c.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L))
+                .description("Approximate bytes held by the gateway response cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("gateway.response.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Share of cache lookups served from the gateway response cache")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("ttl");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        Writes writes = new Writes(config);
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            PathContainer path = exchange.getRequest().getPath().pathWithinApplication();
+            if (writes.isExcluded(path)) {
+                return chain.filter(exchange);
+            }
+            HttpMethod method = exchange.getRequest().getMethod();
+            if (HttpMethod.GET.equals(method)) {
+                return get(exchange, chain, writes, writes.itemOf(path), config.getTtl());
+            }
+            if (HttpMethod.POST.equals(method) || HttpMethod.PUT.equals(method)
+                    || HttpMethod.PATCH.equals(method) || HttpMethod.DELETE.equals(method)) {
+                // Đánh dấu sau khi ghi xong: GET bắt đầu trước thời điểm này không được lưu hay dùng lại
+                String item = writes.itemOf(path);
+                return chain.filter(exchange).doFinally(signal -> writes.record(item));
+            }
+            return chain.filter(exchange);
+        }, ORDER);
+    }
+
+    private Mono<Void> get(ServerWebExchange exchange, GatewayFilterChain chain,
+                           Writes writes, String item, Duration routeTtl) {
+        ServerHttpRequest request = exchange.getRequest();
+        Map<String, String> directives = cacheControl(request.getHeaders());
+        if (directives.containsKey("no-store") || request.getHeaders().containsKey(HttpHeaders.AUTHORIZATION)) {
+            return chain.filter(exchange);
+        }
+        String key = routeId(exchange) + " " + request.getURI().getRawPath()
+                + (request.getURI().getRawQuery() != null ? "?" + request.getURI().getRawQuery() : "");
+        if (!directives.containsKey("no-cache") && !"0".equals(directives.get("max-age"))) {
+            CachedResponse cached = cache.getIfPresent(key);
+            if (cached != null && writes.isCurrent(item, cached.stamp())) {
+                return writeCached(exchange.getResponse(), cached);
+            }
+        }
+        CachingResponse response = new CachingResponse(exchange.getResponse(), key, writes, item, writes.now(),
+                routeTtl);
+        return chain.filter(exchange.mutate().response(response).build());
+    }
+
+    private Mono<Void> writeCached(ServerHttpResponse response, CachedResponse cached) {
+        response.setStatusCode(cached.status());
+        HttpHeaders headers = response.getHeaders();
+        headers.putAll(cached.headers());
+        headers.setContentLength(cached.body().length);
+        headers.set(HttpHeaders.AGE, String.valueOf(
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - cached.storedAtNanos())));
+        headers.set("X-Cache", "HIT");
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    private static String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "";
+    }
+
+    // Thời gian được phép lưu phản hồi, hoặc null nếu phản hồi không được cache
+    private static Duration ttl(HttpStatusCode status, HttpHeaders headers, Duration routeTtl) {
+        if (!HttpStatus.OK.equals(status) || headers.containsKey(HttpHeaders.SET_COOKIE)
+                || headers.getVary().contains("*")) {
+            return null;
+        }
+        MediaType contentType = headers.getContentType();
+        if (contentType != null && MediaType.TEXT_EVENT_STREAM.isCompatibleWith(contentType)) {
+            return null;
+        }
+        Map<String, String> directives = cacheControl(headers);
+        if (directives.containsKey("no-store") || directives.containsKey("no-cache")
+                || directives.containsKey("private")) {
+            return null;
+        }
+        String maxAge = directives.getOrDefault("s-maxage", directives.get("max-age"));
+        Duration ttl = routeTtl;
+        if (maxAge != null) {
+            try {
+                Duration allowed = Duration.ofSeconds(Long.parseLong(maxAge));
+                ttl = allowed.compareTo(routeTtl) < 0 ? allowed : routeTtl;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return ttl.isZero() || ttl.isNegative() ? null : ttl;
+    }
+
+    private static Map<String, String> cacheControl(HttpHeaders headers) {
+        Map<String, String> directives = new HashMap<>();
+        for (String value : headers.getOrEmpty(HttpHeaders.CACHE_CONTROL)) {
+            for (String directive : value.split(",")) {
+                String[] parts = directive.trim().split("=", 2);
+                if (!parts[0].isEmpty()) {
+                    directives.put(parts[0].toLowerCase(), parts.length > 1 ? parts[1].replace("\"", "") : null);
+                }
+            }
+        }
+        return directives;
+    }
+
+    // Chuyển body xuống client ngay trong lúc chép lại; chỉ lưu khi ghi trọn vẹn và không vượt max-entry-size.
+    // Phản hồi dạng stream (SSE) được NettyWriteResponseFilter ghi bằng writeAndFlushWith nên không đi qua đây.
+    private class CachingResponse extends ServerHttpResponseDecorator {
+        private final String key;
+        private final Writes writes;
+        private final String item;
+        private final long stamp;
+        private final Duration routeTtl;
+
+        CachingResponse(ServerHttpResponse delegate, String key, Writes writes, String item, long stamp,
+                        Duration routeTtl) {
+            super(delegate);
+            this.key = key;
+            this.writes = writes;
+            this.item = item;
+            this.stamp = stamp;
+            this.routeTtl = routeTtl;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            Duration ttl = ttl(getStatusCode(), getHeaders(), routeTtl);
+            long contentLength = getHeaders().getContentLength();
+            if (ttl == null || contentLength > maxEntryBytes) {
+                return super.writeWith(body);
+            }
+            getHeaders().set("X-Cache", "MISS");
+            ByteArrayOutputStream captured = new ByteArrayOutputStream(contentLength > 0 ? (int) contentLength : 1024);
+            boolean[] tooLarge = {false};
+            Flux<? extends DataBuffer> tapped = Flux.from(body).doOnNext(buffer -> {
+                int length = buffer.readableByteCount();
+                if (tooLarge[0] || captured.size() + length > maxEntryBytes) {
+                    tooLarge[0] = true;
+                    return;
+                }
+                ByteBuffer copy = ByteBuffer.allocate(length);
+                buffer.toByteBuffer(buffer.readPosition(), copy, 0, length);
+                captured.write(copy.array(), 0, length);
+            });
+            return super.writeWith(tapped).doOnSuccess(done -> {
+                if (!tooLarge[0]) {
+                    store(captured.toByteArray(), ttl);
+                }
+            });
+        }
+
+        private void store(byte[] body, Duration ttl) {
+            // Item hoặc route đã bị ghi trong lúc request này chạy: bản vừa đọc có thể đã cũ
+            if (!writes.isCurrent(item, stamp)) {
+                return;
+            }
+            HttpHeaders headers = new HttpHeaders();
+            getHeaders().forEach((name, values) -> {
+                if (!UNCACHED_HEADERS.contains(name.toLowerCase())) {
+                    headers.put(name, List.copyOf(values));
+                }
+            });
+            cache.put(key, new CachedResponse(getStatusCode(), headers, body, System.nanoTime(), ttl.toNanos(),
+                    stamp));
+            log.debug("Cached {} ({} bytes) for {}", key, body.length, ttl);
+        }
+    }
+
+    /**
+     * Thời điểm ghi gần nhất của một route, theo đồng hồ logic riêng của route: toàn route, các mục không thuộc item
+     * nào, và từng item. Thời điểm ghi của item chỉ cần giữ bằng TTL của route, vì mọi mục lưu trước đó đã hết hạn.
+     */
+    private static final class Writes {
+        private static final PathPatternParser PARSER = PathPatternParser.defaultInstance;
+
+        private final PathPattern itemPath;
+        private final List<PathPattern> excludedPaths;
+        private final AtomicLong clock = new AtomicLong();
+        private volatile long routeWrite;
+        private volatile long collectionWrite;
+        private final Cache<String, Long> itemWrites;
+
+        Writes(Config config) {
+            this.itemPath = config.getItemPath() != null ? PARSER.parse(config.getItemPath()) : null;
+            this.excludedPaths = config.getExcludedPaths().stream().map(PARSER::parse).toList();
+            this.itemWrites = Caffeine.newBuilder()
+                    .expireAfterWrite(config.getTtl())
+                    .build();
+        }
+
+        boolean isExcluded(PathContainer path) {
+            for (PathPattern pattern : excludedPaths) {
+                if (pattern.matches(path)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Giá trị các biến trong item-path (vd. id sản phẩm), hoặc null nếu path không thuộc item nào
+        String itemOf(PathContainer path) {
+            if (itemPath == null) {
+                return null;
+            }
+            PathPattern.PathMatchInfo match = itemPath.matchAndExtract(path);
+            return match != null ? String.join("/", match.getUriVariables().values()) : null;
+        }
+
+        long now() {
+            return clock.get();
+        }
+
+        // Ghi vào item làm cũ item đó và các mục không thuộc item nào; ghi vào path khác làm cũ cả route
+        void record(String item) {
+            long write = clock.incrementAndGet();
+            if (item == null) {
+                routeWrite = write;
+                return;
+            }
+            itemWrites.asMap().merge(item, write, Math::max);
+            collectionWrite = write;
+        }
+
+        boolean isCurrent(String item, long stamp) {
+            if (stamp < routeWrite) {
+                return false;
+            }
+            if (item == null) {
+                return stamp >= collectionWrite;
+            }
+            Long itemWrite = itemWrites.getIfPresent(item);
+            return itemWrite == null || stamp >= itemWrite;
+        }
+    }
+
+    private record CachedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body, long storedAtNanos,
+                                  long ttlNanos, long stamp) {
+        int weight(String key) {
+            long weight = body.length + key.length() * 2L;
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                weight += header.getKey().length();
+                for (String value : header.getValue()) {
+                    weight += value.length();
+                }
+            }
+            return (int) Math.min(Integer.MAX_VALUE, weight);
+        }
+    }
+
+    public static class Config {
+        private Duration ttl = Duration.ofSeconds(10);
+        private String itemPath;
+        private List<String> excludedPaths = List.of();
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public String getItemPath() {
+            return itemPath;
+        }
+
+        public void setItemPath(String itemPath) {
+            this.itemPath = itemPath;
+        }
+
+        public List<String> getExcludedPaths() {
+            return excludedPaths;
+        }
+
+        public void setExcludedPaths(List<String> excludedPaths) {
+            this.excludedPaths = excludedPaths;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.soa.gateway.ratelimit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.Set;
+
+/**
+ * Khóa rate limit của client: API key nếu header X-API-Key chứa một key đã đăng ký trong
+ * {@code gateway.rate-limit.api-keys}, nếu không thì địa chỉ IP kết nối.
+ * Key lạ bị bỏ qua (không tạo bucket riêng), nên client không thể đổi key liên tục để có burst mới.
+ * X-Forwarded-For không được dùng vì client tự đặt được header này.
+ */
+@Component
+public class ClientKeyResolver implements KeyResolver {
+    public static final String API_KEY_HEADER = "X-API-Key";
+
+    private final Set<String> apiKeys;
+
+    public ClientKeyResolver(@Value("${gateway.rate-limit.api-keys:}") Set<String> apiKeys) {
+        this.apiKeys = Set.copyOf(apiKeys);
+    }
+
+    @Override
+    public Mono<String> resolve(ServerWebExchange exchange) {
+        String apiKey = exchange.getRequest().getHeaders().getFirst(API_KEY_HEADER);
+        if (apiKey != null && apiKeys.contains(apiKey.trim())) {
+            return Mono.just("key:" + apiKey.trim());
+        }
+        InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+        if (remoteAddress == null) {
+            // Khóa rỗng: ClientRateLimiter từ chối request (deny-empty-key)
+            return Mono.empty();
+        }
+        return Mono.just("ip:" + remoteAddress.getAddress().getHostAddress());
+    }
+}
@@ -0,0 +1,31 @@
+package com.soa.gateway.ratelimit;
+
+import com.soa.gateway.filter.ResponseCacheGatewayFilterFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.RequestRateLimiterGatewayFilterFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * RequestRateLimiter dùng {@link LocalRateLimiter} và {@link ClientKeyResolver}, chạy trước ResponseCache.
+ * <p>
+ * Filter khai báo trên route nhận order theo vị trí (1, 2, ...), còn ResponseCache phải chạy trước
+ * NettyWriteResponseFilter nên có order âm; RequestRateLimiter thông thường vì vậy chạy sau cache và request trúng
+ * cache không bị tính. Filter này có order nhỏ hơn ResponseCache để mọi request của client đều bị tính.
+ * <p>
+ * Khai báo trên route: {@code - name: ClientRateLimiter} với cùng tham số như RequestRateLimiter
+ * (ví dụ {@code local-rate-limiter.replenish-rate}).
+ */
+@Component
+public class ClientRateLimiterGatewayFilterFactory extends RequestRateLimiterGatewayFilterFactory {
+    public static final int ORDER = ResponseCacheGatewayFilterFactory.ORDER - 1;
+
+    public ClientRateLimiterGatewayFilterFactory(LocalRateLimiter rateLimiter, ClientKeyResolver keyResolver) {
+        super(rateLimiter, keyResolver);
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return new OrderedGatewayFilter(super.apply(config), ORDER);
+    }
+}
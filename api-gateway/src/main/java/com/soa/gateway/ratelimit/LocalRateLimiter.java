@@ -0,0 +1,154 @@
+package com.soa.gateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate limiter cho ClientRateLimiter (RequestRateLimiter) chạy hoàn toàn trong bộ nhớ của gateway, không cần Redis.
+ * <p>
+ * Mỗi cặp (route, client) là một token bucket theo GCRA: trạng thái chỉ là một AtomicLong chứa "thời điểm đến lý
+ * thuyết" (TAT) và được cập nhật bằng compare-and-set, nên không có lock trên đường đi của request. Request được
+ * nhận nếu TAT mới không vượt quá hiện tại + burst-capacity khoảng phát token.
+ * <p>
+ * Bảng bucket bị giới hạn số khóa và tự xóa bucket không được dùng trong idle-timeout. Bucket bị xóa tương đương
+ * một bucket đầy, nên việc xóa chỉ có thể cho client thêm tối đa một burst, không bao giờ chặn nhầm.
+ * <p>
+ * Cấu hình theo route qua {@code local-rate-limiter.replenish-rate}, {@code burst-capacity} và
+ * {@code requested-tokens}; route không khai báo dùng giá trị {@code gateway.rate-limit.*}.
+ */
+@Component
+public class LocalRateLimiter extends AbstractRateLimiter<LocalRateLimiter.Config> {
+    public static final String CONFIGURATION_PROPERTY_NAME = "local-rate-limiter";
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final Cache<String, AtomicLong> buckets;
+    private final Config defaultConfig;
+    private final MeterRegistry meterRegistry;
+    // Cặp counter [allowed, denied] theo route, tạo một lần cho mỗi route
+    private final Map<String, Counter[]> counters = new ConcurrentHashMap<>();
+
+    public LocalRateLimiter(ConfigurationService configurationService,
+                            MeterRegistry meterRegistry,
+                            @Value("${gateway.rate-limit.replenish-rate:50}") int replenishRate,
+                            @Value("${gateway.rate-limit.burst-capacity:100}") int burstCapacity,
+                            @Value("${gateway.rate-limit.max-keys:1000000}") long maxKeys,
+                            @Value("${gateway.rate-limit.idle-timeout:10m}") Duration idleTimeout) {
+        super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+        this.meterRegistry = meterRegistry;
+        this.defaultConfig = new Config();
+        defaultConfig.setReplenishRate(replenishRate);
+        defaultConfig.setBurstCapacity(burstCapacity);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idleTimeout)
+                .build();
+        Gauge.builder("gateway.ratelimit.buckets", buckets, Cache::estimatedSize)
+                .description("Client buckets tracked by the local rate limiter")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        Config config = getConfig().getOrDefault(routeId, defaultConfig);
+        int burst = config.getBurstCapacity() > 0 ? config.getBurstCapacity() : defaultConfig.getBurstCapacity();
+        int rate = config.getReplenishRate() > 0 ? config.getReplenishRate() : defaultConfig.getReplenishRate();
+        int tokens = Math.max(1, config.getRequestedTokens());
+        if (tokens > burst) {
+            // Không bao giờ đủ token: từ chối luôn thay vì trả Retry-After sai
+            return Mono.just(response(false, routeId, burst, rate, tokens, 0, -1));
+        }
+
+        long interval = NANOS_PER_SECOND / rate;
+        long cost = interval * tokens;
+        long tolerance = interval * burst;
+        AtomicLong tat = buckets.get(routeId + '\u0000' + id, key -> new AtomicLong(Long.MIN_VALUE));
+        while (true) {
+            long now = System.nanoTime();
+            long current = tat.get();
+            long newTat = Math.max(current, now) + cost;
+            long allowAt = newTat - tolerance;
+            if (allowAt > now) {
+                return Mono.just(response(false, routeId, burst, rate, tokens, 0, allowAt - now));
+            }
+            if (tat.compareAndSet(current, newTat)) {
+                long remaining = (now + tolerance - newTat) / interval;
+                return Mono.just(response(true, routeId, burst, rate, tokens, remaining, 0));
+            }
+        }
+    }
+
+    private Response response(boolean allowed, String routeId, int burst, int rate, int tokens, long remaining,
+                              long retryAfterNanos) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("X-RateLimit-Remaining", String.valueOf(remaining));
+        headers.put("X-RateLimit-Burst-Capacity", String.valueOf(burst));
+        headers.put("X-RateLimit-Replenish-Rate", String.valueOf(rate));
+        headers.put("X-RateLimit-Requested-Tokens", String.valueOf(tokens));
+        if (retryAfterNanos > 0) {
+            // Retry-After tính bằng giây (làm tròn lên); header ms cho client cần chính xác hơn
+            long retryAfterMs = TimeUnit.NANOSECONDS.toMillis(retryAfterNanos) + 1;
+            headers.put(HttpHeaders.RETRY_AFTER, String.valueOf((retryAfterMs + 999) / 1000));
+            headers.put("X-RateLimit-Retry-After-Ms", String.valueOf(retryAfterMs));
+        }
+        counters.computeIfAbsent(routeId, this::counters)[allowed ? 0 : 1].increment();
+        return new Response(allowed, headers);
+    }
+
+    private Counter[] counters(String routeId) {
+        return new Counter[]{counter(routeId, "allowed"), counter(routeId, "denied")};
+    }
+
+    private Counter counter(String routeId, String result) {
+        return Counter.builder("gateway.ratelimit.requests")
+                .tag("route", routeId)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    public static class Config {
+        private int replenishRate;
+        private int burstCapacity;
+        private int requestedTokens = 1;
+
+        public int getReplenishRate() {
+            return replenishRate;
+        }
+
+        public void setReplenishRate(int replenishRate) {
+            this.replenishRate = replenishRate;
+        }
+
+        public int getBurstCapacity() {
+            return burstCapacity;
+        }
+
+        public void setBurstCapacity(int burstCapacity) {
+            this.burstCapacity = burstCapacity;
+        }
+
+        public int getRequestedTokens() {
+            return requestedTokens;
+        }
+
+        public void setRequestedTokens(int requestedTokens) {
+            this.requestedTokens = requestedTokens;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+import com.soa.gateway.ratelimit.LocalRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Đo thông lượng của {@code LocalRateLimiter.isAllowed} ngay trong tiến trình, không qua HTTP:
+ * <ul>
+ *     <li>uncontended: mỗi luồng một client riêng, request luôn được nhận (đường CAS không tranh chấp);</li>
+ *     <li>contended: mọi luồng cùng một client, request luôn được nhận (mọi luồng CAS trên một AtomicLong);</li>
+ *     <li>contended-denied: mọi luồng cùng một client đã hết token (đường từ chối, không ghi).</li>
+ * </ul>
+ * Chạy sau khi build api-gateway (JDK 17+):
+ * <pre>
+ * mvn -q -f api-gateway dependency:build-classpath -Dmdep.outputFile=/tmp/gateway.cp
+ * java -cp "$(cat /tmp/gateway.cp):api-gateway/target/classes" benchmarks/RateLimiterBench.java [threads] [seconds]
+ * java -cp "$(cat /tmp/gateway.cp):api-gateway/target/classes" benchmarks/RateLimiterBench.java 1,4,16 5
+ * </pre>
+ * Mỗi kịch bản chạy một lượt khởi động trước khi đo; kết quả phụ thuộc số CPU, nên so sánh các dòng trên cùng máy.
+ */
+public class RateLimiterBench {
+    private static final String ROUTE = "bench";
+    private static final int UNLIMITED = 1_000_000_000;
+
+    public static void main(String[] args) throws Exception {
+        String[] threadCounts = (args.length > 0 ? args[0] : "1,4,16").split(",");
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        // ConfigurationService chỉ dùng khi nhận cấu hình theo route, ở đây mọi route dùng giá trị mặc định
+        LocalRateLimiter unlimited = new LocalRateLimiter(null, new SimpleMeterRegistry(), UNLIMITED, UNLIMITED,
+                1_000_000, Duration.ofMinutes(10));
+        LocalRateLimiter exhausted = new LocalRateLimiter(null, new SimpleMeterRegistry(), 1, 1,
+                1_000_000, Duration.ofMinutes(10));
+
+        for (String value : threadCounts) {
+            int threads = Integer.parseInt(value.trim());
+            report("uncontended", threads, seconds, thread -> unlimited, thread -> "ip:10.0.0." + thread);
+            report("contended", threads, seconds, thread -> unlimited, thread -> "ip:10.0.0.1");
+            report("contended-denied", threads, seconds, thread -> exhausted, thread -> "ip:10.0.0.1");
+        }
+    }
+
+    private static void report(String scenario, int threads, int seconds, Limiters limiters, Keys keys)
+            throws InterruptedException {
+        run(threads, Math.max(1, seconds / 2), limiters, keys);
+        Result result = run(threads, seconds, limiters, keys);
+        System.out.printf("%-17s threads=%-3d %,14.0f calls/s %,8.0f ns/call per thread  allowed=%.1f%%%n",
+                scenario, threads, result.perSecond(), result.nanosPerCall(threads), result.allowedPercent());
+    }
+
+    private static Result run(int threads, int seconds, Limiters limiters, Keys keys) throws InterruptedException {
+        LongAdder calls = new LongAdder();
+        LongAdder allowed = new LongAdder();
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            LocalRateLimiter limiter = limiters.forThread(i);
+            String key = keys.forThread(i);
+            Thread worker = new Thread(() -> {
+                long localCalls = 0;
+                long localAllowed = 0;
+                while (running.get()) {
+                    if (limiter.isAllowed(ROUTE, key).block().isAllowed()) {
+                        localAllowed++;
+                    }
+                    localCalls++;
+                }
+                calls.add(localCalls);
+                allowed.add(localAllowed);
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        long start = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return new Result(calls.sum(), allowed.sum(), System.nanoTime() - start);
+    }
+
+    private interface Limiters {
+        LocalRateLimiter forThread(int thread);
+    }
+
+    private interface Keys {
+        String forThread(int thread);
+    }
+
+    private record Result(long calls, long allowed, long nanos) {
+        double perSecond() {
+            return calls * 1e9 / nanos;
+        }
+
+        double nanosPerCall(int threads) {
+            return calls == 0 ? 0 : (double) nanos * threads / calls;
+        }
+
+        double allowedPercent() {
+            return calls == 0 ? 0 : allowed * 100.0 / calls;
+        }
+    }
+}
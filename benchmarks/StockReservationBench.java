@@ -0,0 +1,126 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Đo số lần giữ hàng mỗi giây (POST /api/products/stock/reservations) trên một Product Service đang chạy,
+ * so sánh đường UPDATE trực tiếp trên bảng products với chế độ bán nhanh (bộ đếm phân ô, PUT /{id}/hot).
+ * Mỗi chế độ dùng một sản phẩm mới có tồn kho đủ lớn để không hết hàng trong lúc đo; mọi luồng cùng trừ
+ * một sản phẩm để tái hiện tình huống tranh chấp của flash sale.
+ * <p>
+ * Chạy (không cần build, JDK 17+):
+ * <pre>
+ * java benchmarks/StockReservationBench.java [baseUrl] [threads] [seconds]
+ * java benchmarks/StockReservationBench.java http://localhost:8082 32 20
+ * </pre>
+ * Kết quả phụ thuộc nhiều vào số CPU và database; nên chạy với show-sql tắt
+ * (--spring.jpa.show-sql=false) và so sánh hai dòng kết quả trên cùng một máy.
+ */
+public class StockReservationBench {
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+    private static final int STOCK = 100_000_000;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+    private final String baseUrl;
+
+    StockReservationBench(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8082";
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        StockReservationBench bench = new StockReservationBench(baseUrl);
+
+        long dbProduct = bench.createProduct("bench-db");
+        long hotProduct = bench.createProduct("bench-hot");
+        bench.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/products/" + hotProduct + "/hot"))
+                .PUT(HttpRequest.BodyPublishers.noBody()), 200);
+
+        // Lượt chạy ngắn đầu tiên chỉ để JIT và pool kết nối ổn định, không tính vào kết quả
+        bench.run(dbProduct, threads, Math.max(2, seconds / 4));
+        bench.run(hotProduct, threads, Math.max(2, seconds / 4));
+
+        Result db = bench.run(dbProduct, threads, seconds);
+        Result hot = bench.run(hotProduct, threads, seconds);
+        System.out.printf("threads=%d duration=%ds%n", threads, seconds);
+        System.out.printf("db path   : %,10.0f reservations/s  errors=%d%n", db.perSecond(), db.errors);
+        System.out.printf("hot stock : %,10.0f reservations/s  errors=%d%n", hot.perSecond(), hot.errors);
+        System.out.printf("speedup   : %.2fx%n", hot.perSecond() / db.perSecond());
+
+        bench.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/products/" + hotProduct + "/hot"))
+                .DELETE(), 204);
+    }
+
+    private long createProduct(String name) throws Exception {
+        String body = "{\"name\":\"" + name + "\",\"price\":1,\"stock\":" + STOCK + ",\"category\":\"bench\"}";
+        String response = send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/products"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body)), 201);
+        Matcher matcher = ID.matcher(response);
+        if (!matcher.find()) {
+            throw new IllegalStateException("Không đọc được id sản phẩm: " + response);
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private Result run(long productId, int threads, int seconds) throws InterruptedException {
+        String body = "{\"items\":[{\"productId\":" + productId + ",\"quantity\":1}]}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/products/stock/reservations"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(10))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        LongAdder ok = new LongAdder();
+        LongAdder errors = new LongAdder();
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> {
+                while (running.get()) {
+                    try {
+                        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        (status == 200 ? ok : errors).increment();
+                    } catch (Exception e) {
+                        errors.increment();
+                    }
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        long start = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return new Result(ok.sum(), errors.sum(), System.nanoTime() - start);
+    }
+
+    private String send(HttpRequest.Builder request, int expectedStatus) throws Exception {
+        HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != expectedStatus) {
+            throw new IllegalStateException(response.statusCode() + " " + response.body());
+        }
+        return response.body();
+    }
+
+    private record Result(long ok, long errors, long nanos) {
+        double perSecond() {
+            return ok * 1e9 / nanos;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.soa.order.client;
+
+import com.soa.order.dto.ProductChangeDTO;
+import com.soa.order.dto.ProductChangesDTO;
+import com.soa.order.dto.ProductDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bản sao danh mục sản phẩm trong bộ nhớ (chỉ các trường cần để tính giá), được cập nhật bằng cách đọc feed
+ * GET /api/products/changes của Product Service. Dùng để tính giá và kiểm tra sơ bộ khi tạo đơn;
+ * việc giữ hàng vẫn được Product Service kiểm tra lại. Khi bản sao quá cũ, người gọi quay về tra cứu trực tiếp.
+ */
+@Component
+@Slf4j
+public class ProductCatalogueReplica {
+    private final ProductServiceClient productServiceClient;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration maxStaleness;
+    private final Map<Long, ProductDTO> products = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    private volatile long logId = -1;
+    private volatile long version;
+    private volatile long head;
+    private volatile long lastSyncNanos;
+
+    public ProductCatalogueReplica(ProductServiceClient productServiceClient,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${order.catalogue.enabled:false}") boolean enabled,
+                                   @Value("${order.catalogue.batch-size:1000}") int batchSize,
+                                   @Value("${order.catalogue.max-staleness:5s}") Duration maxStaleness) {
+        this.productServiceClient = productServiceClient;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxStaleness = maxStaleness;
+        Gauge.builder("order.catalogue.replica.size", products, Map::size)
+                .description("Products held by the local catalogue replica")
+                .register(meterRegistry);
+        Gauge.builder("order.catalogue.replica.lag", this, replica -> replica.head - replica.version)
+                .description("Change log versions not yet applied at the last sync")
+                .register(meterRegistry);
+        Gauge.builder("order.catalogue.replica.staleness", this, ProductCatalogueReplica::stalenessSeconds)
+                .description("Seconds since the replica last caught up with product-service")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.hits = Counter.builder("order.catalogue.replica.lookups").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("order.catalogue.replica.lookups").tag("result", "miss").register(meterRegistry);
+    }
+
+    public boolean isReady() {
+        return enabled && lastSyncNanos != 0 && System.nanoTime() - lastSyncNanos <= maxStaleness.toNanos();
+    }
+
+    // Các sản phẩm có trong bản sao; ID không có (ví dụ sản phẩm vừa tạo) để người gọi tra cứu trực tiếp
+    public Map<Long, ProductDTO> find(Collection<Long> productIds) {
+        Map<Long, ProductDTO> found = new HashMap<>();
+        for (Long productId : productIds) {
+            ProductDTO product = products.get(productId);
+            if (product != null) {
+                found.put(productId, product);
+            }
+        }
+        hits.increment(found.size());
+        misses.increment(productIds.size() - found.size());
+        return found;
+    }
+
+    @Scheduled(fixedDelayString = "${order.catalogue.poll-interval-ms:500}")
+    public void sync() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            ProductChangesDTO changes;
+            do {
+                changes = productServiceClient.getProductChanges(version, batchSize);
+                if (changes.isResync() || changes.getLogId() != logId) {
+                    resync(changes);
+                } else {
+                    apply(changes);
+                }
+            } while (version < head);
+            lastSyncNanos = System.nanoTime();
+        } catch (RuntimeException e) {
+            log.warn("Product catalogue replica sync failed: {}", e.getMessage());
+        }
+    }
+
+    // Tải lại toàn bộ danh mục; các thay đổi xảy ra trong lúc tải sẽ được đọc lại từ feed (ghi đè là idempotent)
+    private void resync(ProductChangesDTO changes) {
+        List<ProductDTO> snapshot = productServiceClient.getAllProducts();
+        Map<Long, ProductDTO> loaded = new HashMap<>();
+        for (ProductDTO product : snapshot) {
+            loaded.put(product.getId(), replica(product.getId(), product.getName(), product.getPrice(),
+                    product.getStock()));
+        }
+        products.keySet().retainAll(loaded.keySet());
+        products.putAll(loaded);
+        logId = changes.getLogId();
+        version = changes.getHead();
+        head = changes.getHead();
+        log.info("Product catalogue replica resynced: {} products at version {}", loaded.size(), version);
+    }
+
+    private void apply(ProductChangesDTO changes) {
+        for (ProductChangeDTO change : changes.getChanges()) {
+            if (change.isDeleted()) {
+                products.remove(change.getId());
+            } else {
+                products.put(change.getId(), replica(change.getId(), change.getName(), change.getPrice(),
+                        change.getStock()));
+            }
+        }
+        version = changes.getVersion();
+        head = changes.getHead();
+    }
+
+    private ProductDTO replica(Long id, String name, BigDecimal price, Integer stock) {
+        return new ProductDTO(id, name, null, price, stock, null);
+    }
+
+    private double stalenessSeconds() {
+        long last = lastSyncNanos;
+        return last == 0 ? Double.NaN : (System.nanoTime() - last) / 1e9;
+    }
+}
@@ -1,31 +1,87 @@
 package com.soa.order.client;
 
+import com.soa.order.dto.OrderItemRequest;
+import com.soa.order.dto.ProductChangesDTO;
 import com.soa.order.dto.ProductDTO;
+import com.soa.order.dto.StockCommand;
+import com.soa.order.dto.StockCommandResult;
+import com.soa.order.dto.StockReservationRequest;
+import com.soa.order.resilience.DownstreamGuard;
+import com.soa.order.resilience.HedgedRequestExecutor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
 @Component
 @RequiredArgsConstructor
 public class ProductServiceClient {
+    @Qualifier("productServiceRestTemplate")
     private final RestTemplate restTemplate;
+    @Qualifier("productServiceGuard")
+    private final DownstreamGuard guard;
+    @Qualifier("productServiceHedging")
+    private final HedgedRequestExecutor hedging;
 
-    public ProductDTO getProductById(Long productId) {
+    public List<ProductDTO> getProductsByIds(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
         try {
-            String url = "http://product-service/api/products/" + productId;
-            return restTemplate.getForObject(url, ProductDTO.class);
+            String ids = productIds.stream()
+                    .map(String::valueOf)
+                    .collect(Collectors.joining(","));
+            String path = "/api/products?ids=" + ids;
+            ProductDTO[] products = guard.execute(() -> hedging.isEnabled()
+                    ? hedging.get(path, ProductDTO[].class)
+                    : restTemplate.getForObject("http://product-service" + path, ProductDTO[].class));
+            return products == null ? List.of() : Arrays.asList(products);
         } catch (Exception e) {
             throw new RuntimeException("Không thể lấy thông tin sản phẩm: " + e.getMessage());
         }
     }
 
-    public void updateStock(Long productId, Integer quantity) {
+    public ProductChangesDTO getProductChanges(long since, int limit) {
+        try {
+            String url = "http://product-service/api/products/changes?since=" + since + "&limit=" + limit;
+            return guard.execute(() -> restTemplate.getForObject(url, ProductChangesDTO.class));
+        } catch (Exception e) {
+            throw new RuntimeException("Không thể đọc thay đổi sản phẩm: " + e.getMessage());
+        }
+    }
+
+    public List<ProductDTO> getAllProducts() {
+        try {
+            String url = "http://product-service/api/products";
+            ProductDTO[] products = guard.execute(() -> restTemplate.getForObject(url, ProductDTO[].class));
+            return products == null ? List.of() : Arrays.asList(products);
+        } catch (Exception e) {
+            throw new RuntimeException("Không thể lấy danh sách sản phẩm: " + e.getMessage());
+        }
+    }
+
+    public void reserveStock(String reference, List<OrderItemRequest> items) {
         try {
-            String url = "http://product-service/api/products/" + productId + "/stock?quantity=" + quantity;
-            restTemplate.put(url, null);
+            String url = "http://product-service/api/products/stock/reservations";
+            guard.execute(() -> restTemplate.postForEntity(url, new StockReservationRequest(reference, items), Void.class));
         } catch (Exception e) {
             throw new RuntimeException("Không thể cập nhật số lượng sản phẩm: " + e.getMessage());
         }
     }
-}
 
+    public List<StockCommandResult> applyStockCommands(List<StockCommand> commands) {
+        try {
+            String url = "http://product-service/api/products/stock/commands";
+            StockCommandResult[] results = guard.execute(
+                    () -> restTemplate.postForObject(url, commands, StockCommandResult[].class));
+            return results == null ? List.of() : Arrays.asList(results);
+        } catch (Exception e) {
+            throw new RuntimeException("Không thể gửi lệnh tồn kho: " + e.getMessage());
+        }
+    }
+}
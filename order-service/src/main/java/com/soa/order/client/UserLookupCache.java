@@ -0,0 +1,59 @@
+package com.soa.order.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.soa.order.dto.UserDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Cache cục bộ kết quả tra cứu user, lưu cả trường hợp không tìm thấy (với TTL ngắn hơn).
+ */
+@Component
+public class UserLookupCache {
+    private final Cache<Long, Optional<UserDTO>> cache;
+
+    public UserLookupCache(@Value("${order.user-cache.max-size:100000}") long maxSize,
+                           @Value("${order.user-cache.ttl:10m}") Duration ttl,
+                           @Value("${order.user-cache.negative-ttl:30s}") Duration negativeTtl,
+                           MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<Long, Optional<UserDTO>>() {
+                    @Override
+                    public long expireAfterCreate(Long userId, Optional<UserDTO> user, long currentTime) {
+                        return (user.isPresent() ? ttl : negativeTtl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long userId, Optional<UserDTO> user, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(userId, user, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long userId, Optional<UserDTO> user, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "user-lookup");
+    }
+
+    public Optional<UserDTO> get(Long userId, Function<Long, Optional<UserDTO>> loader) {
+        return cache.get(userId, loader);
+    }
+
+    public void invalidate(Long userId) {
+        cache.invalidate(userId);
+    }
+}
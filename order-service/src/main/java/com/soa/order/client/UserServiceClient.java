@@ -1,25 +1,42 @@
 package com.soa.order.client;
 
 import com.soa.order.dto.UserDTO;
+import com.soa.order.resilience.DownstreamGuard;
+import com.soa.order.resilience.HedgedRequestExecutor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.Optional;
+
 @Component
 @RequiredArgsConstructor
 public class UserServiceClient {
+    @Qualifier("userServiceRestTemplate")
     private final RestTemplate restTemplate;
+    @Qualifier("userServiceGuard")
+    private final DownstreamGuard guard;
+    @Qualifier("userServiceHedging")
+    private final HedgedRequestExecutor hedging;
+    private final UserLookupCache userLookupCache;
 
     public UserDTO getUserById(Long userId) {
+        return userLookupCache.get(userId, this::fetchUser)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy user với ID: " + userId));
+    }
+
+    private Optional<UserDTO> fetchUser(Long userId) {
         try {
-            String url = "http://user-service/api/users/" + userId;
-            return restTemplate.getForObject(url, UserDTO.class);
+            String path = "/api/users/" + userId;
+            return Optional.ofNullable(guard.execute(() -> hedging.isEnabled()
+                    ? hedging.get(path, UserDTO.class)
+                    : restTemplate.getForObject("http://user-service" + path, UserDTO.class)));
+        } catch (HttpClientErrorException.NotFound e) {
+            return Optional.empty();
         } catch (Exception e) {
             throw new RuntimeException("Không thể lấy thông tin user: " + e.getMessage());
         }
     }
 }
-
-
-
-
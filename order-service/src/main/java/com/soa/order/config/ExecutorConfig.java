@@ -0,0 +1,66 @@
+package com.soa.order.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Mỗi service phụ thuộc có pool thread riêng (bulkhead): User Service chậm chỉ làm đầy pool của nó,
+ * không chiếm thread của các lời gọi sang Product Service và ngược lại.
+ */
+@Configuration
+public class ExecutorConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor userServiceExecutor(
+            @Value("${order.assembly.user-service.pool-size:8}") int poolSize,
+            @Value("${order.assembly.user-service.queue-capacity:100}") int queueCapacity) {
+        return boundedExecutor(poolSize, queueCapacity, "user-call-");
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor productServiceExecutor(
+            @Value("${order.assembly.product-service.pool-size:16}") int poolSize,
+            @Value("${order.assembly.product-service.queue-capacity:200}") int queueCapacity) {
+        return boundedExecutor(poolSize, queueCapacity, "product-call-");
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor orderStreamExecutor(
+            @Value("${order.stream.pool-size:8}") int poolSize,
+            @Value("${order.stream.queue-capacity:10000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("order-stream-");
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor userServiceHedgingExecutor(
+            @Value("${order.hedging.user-service.pool-size:8}") int poolSize,
+            @Value("${order.hedging.user-service.queue-capacity:50}") int queueCapacity) {
+        return boundedExecutor(poolSize, queueCapacity, "user-hedged-get-");
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor productServiceHedgingExecutor(
+            @Value("${order.hedging.product-service.pool-size:12}") int poolSize,
+            @Value("${order.hedging.product-service.queue-capacity:50}") int queueCapacity) {
+        return boundedExecutor(poolSize, queueCapacity, "product-hedged-get-");
+    }
+
+    private ThreadPoolTaskExecutor boundedExecutor(int poolSize, int queueCapacity, String threadNamePrefix) {
+        // Pool giới hạn: khi đầy sẽ từ chối ngay thay vì xếp hàng vô hạn
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+}
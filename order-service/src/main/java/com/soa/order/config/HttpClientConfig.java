@@ -0,0 +1,209 @@
+package com.soa.order.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.soa.order.resilience.HedgedRequestExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.IdleConnectionEvictor;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+
+/**
+ * Mỗi service đích (User Service, Product Service) có pool kết nối HTTP riêng với số kết nối tối đa riêng,
+ * để một service chậm không giữ hết kết nối của service kia.
+ * Mỗi service đích có RestTemplate riêng với timeout riêng cho thao tác đọc (GET) và ghi.
+ */
+@Configuration
+public class HttpClientConfig {
+    private static final Duration DEFAULT_RESPONSE_TIMEOUT = Duration.ofSeconds(5);
+
+    private final Duration connectionRequestTimeout;
+    private final Duration keepAlive;
+
+    @Value("${order.hedging.enabled:false}")
+    private boolean hedgingEnabled;
+    @Value("${order.hedging.percentile:0.95}")
+    private double hedgingPercentile;
+    @Value("${order.hedging.min-delay:10ms}")
+    private Duration hedgingMinDelay;
+    @Value("${order.hedging.initial-delay:100ms}")
+    private Duration hedgingInitialDelay;
+    @Value("${order.hedging.budget-ratio:0.1}")
+    private double hedgingBudgetRatio;
+    @Value("${order.hedging.budget-burst:10}")
+    private double hedgingBudgetBurst;
+
+    public HttpClientConfig(@Value("${order.http.connection-request-timeout:500ms}") Duration connectionRequestTimeout,
+                            @Value("${order.http.keep-alive:30s}") Duration keepAlive) {
+        this.connectionRequestTimeout = connectionRequestTimeout;
+        this.keepAlive = keepAlive;
+    }
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager userServiceConnectionManager(
+            @Value("${order.http.user-service.max-connections:40}") int maxConnections,
+            @Value("${order.http.connect-timeout:1s}") Duration connectTimeout,
+            MeterRegistry meterRegistry) {
+        return connectionManager("user-service", maxConnections, connectTimeout, meterRegistry);
+    }
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager productServiceConnectionManager(
+            @Value("${order.http.product-service.max-connections:60}") int maxConnections,
+            @Value("${order.http.connect-timeout:1s}") Duration connectTimeout,
+            MeterRegistry meterRegistry) {
+        return connectionManager("product-service", maxConnections, connectTimeout, meterRegistry);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    public IdleConnectionEvictor userServiceIdleConnectionEvictor(
+            @Qualifier("userServiceConnectionManager") PoolingHttpClientConnectionManager connectionManager,
+            @Value("${order.http.idle-timeout:60s}") Duration idleTimeout) {
+        return idleConnectionEvictor(connectionManager, idleTimeout);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    public IdleConnectionEvictor productServiceIdleConnectionEvictor(
+            @Qualifier("productServiceConnectionManager") PoolingHttpClientConnectionManager connectionManager,
+            @Value("${order.http.idle-timeout:60s}") Duration idleTimeout) {
+        return idleConnectionEvictor(connectionManager, idleTimeout);
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient userServiceHttpClient(
+            @Qualifier("userServiceConnectionManager") PoolingHttpClientConnectionManager connectionManager,
+            MeterRegistry meterRegistry) {
+        return httpClient("user-service", connectionManager, meterRegistry);
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient productServiceHttpClient(
+            @Qualifier("productServiceConnectionManager") PoolingHttpClientConnectionManager connectionManager,
+            MeterRegistry meterRegistry) {
+        return httpClient("product-service", connectionManager, meterRegistry);
+    }
+
+    @Bean
+    @LoadBalanced
+    public RestTemplate userServiceRestTemplate(
+            @Qualifier("userServiceHttpClient") CloseableHttpClient httpClient,
+            @Value("${order.http.user-service.read-timeout:2s}") Duration readTimeout,
+            @Value("${order.http.user-service.write-timeout:2s}") Duration writeTimeout) {
+        return new RestTemplate(requestFactory(httpClient, readTimeout, writeTimeout));
+    }
+
+    @Bean
+    @LoadBalanced
+    public RestTemplate productServiceRestTemplate(
+            @Qualifier("productServiceHttpClient") CloseableHttpClient httpClient,
+            @Value("${order.http.product-service.read-timeout:2s}") Duration readTimeout,
+            @Value("${order.http.product-service.write-timeout:5s}") Duration writeTimeout) {
+        return new RestTemplate(requestFactory(httpClient, readTimeout, writeTimeout));
+    }
+
+    @Bean
+    public HedgedRequestExecutor userServiceHedging(
+            DiscoveryClient discoveryClient,
+            @Qualifier("userServiceHttpClient") CloseableHttpClient httpClient,
+            ObjectMapper objectMapper,
+            @Qualifier("userServiceHedgingExecutor") ThreadPoolTaskExecutor hedgingExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${order.http.user-service.read-timeout:2s}") Duration readTimeout) {
+        return hedging("user-service", discoveryClient, httpClient, objectMapper,
+                hedgingExecutor, meterRegistry, readTimeout);
+    }
+
+    @Bean
+    public HedgedRequestExecutor productServiceHedging(
+            DiscoveryClient discoveryClient,
+            @Qualifier("productServiceHttpClient") CloseableHttpClient httpClient,
+            ObjectMapper objectMapper,
+            @Qualifier("productServiceHedgingExecutor") ThreadPoolTaskExecutor hedgingExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${order.http.product-service.read-timeout:2s}") Duration readTimeout) {
+        return hedging("product-service", discoveryClient, httpClient, objectMapper,
+                hedgingExecutor, meterRegistry, readTimeout);
+    }
+
+    private PoolingHttpClientConnectionManager connectionManager(String service, int maxConnections,
+                                                                 Duration connectTimeout,
+                                                                 MeterRegistry meterRegistry) {
+        // Tổng số kết nối tới một service bị chặn bất kể có bao nhiêu instance
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(5))
+                        .build())
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, service).bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    private IdleConnectionEvictor idleConnectionEvictor(PoolingHttpClientConnectionManager connectionManager,
+                                                        Duration idleTimeout) {
+        // Đóng các kết nối keep-alive nhàn rỗi quá lâu để không bị server phía kia cắt ngang
+        return new IdleConnectionEvictor(connectionManager, TimeValue.ofSeconds(5), TimeValue.of(idleTimeout));
+    }
+
+    private CloseableHttpClient httpClient(String service, PoolingHttpClientConnectionManager connectionManager,
+                                           MeterRegistry meterRegistry) {
+        return HttpClients.custom()
+                .setConnectionManager(new MeteredConnectionManager(service, connectionManager, meterRegistry))
+                .setConnectionManagerShared(true)
+                .setDefaultRequestConfig(requestConfig(DEFAULT_RESPONSE_TIMEOUT))
+                .build();
+    }
+
+    private HedgedRequestExecutor hedging(String service, DiscoveryClient discoveryClient,
+                                          CloseableHttpClient httpClient, ObjectMapper objectMapper,
+                                          ThreadPoolTaskExecutor executor, MeterRegistry meterRegistry,
+                                          Duration readTimeout) {
+        return new HedgedRequestExecutor(service, hedgingEnabled, discoveryClient, httpClient,
+                requestConfig(readTimeout), objectMapper, executor, hedgingPercentile, hedgingMinDelay,
+                hedgingInitialDelay, hedgingBudgetRatio, hedgingBudgetBurst, meterRegistry);
+    }
+
+    private HttpComponentsClientHttpRequestFactory requestFactory(CloseableHttpClient httpClient,
+                                                                  Duration readTimeout,
+                                                                  Duration writeTimeout) {
+        RequestConfig readConfig = requestConfig(readTimeout);
+        RequestConfig writeConfig = requestConfig(writeTimeout);
+
+        HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        factory.setHttpContextFactory((method, uri) -> {
+            HttpClientContext context = HttpClientContext.create();
+            context.setRequestConfig(HttpMethod.GET.equals(method) ? readConfig : writeConfig);
+            return context;
+        });
+        return factory;
+    }
+
+    private RequestConfig requestConfig(Duration responseTimeout) {
+        return RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.of(connectionRequestTimeout))
+                .setConnectionKeepAlive(TimeValue.of(keepAlive))
+                .setResponseTimeout(Timeout.of(responseTimeout))
+                .build();
+    }
+}
@@ -0,0 +1,86 @@
+package com.soa.order.config;
+
+import com.soa.order.resilience.AdaptiveConcurrencyLimiter;
+import com.soa.order.resilience.DownstreamGuard;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+
+@Configuration
+public class ResilienceConfig {
+    private final MeterRegistry meterRegistry;
+    private final int initialLimit;
+    private final int minLimit;
+    private final Duration latencyThreshold;
+    private final double backoffRatio;
+
+    public ResilienceConfig(MeterRegistry meterRegistry,
+                            @Value("${order.resilience.limiter.initial-limit:20}") int initialLimit,
+                            @Value("${order.resilience.limiter.min-limit:2}") int minLimit,
+                            @Value("${order.resilience.limiter.latency-threshold:500ms}") Duration latencyThreshold,
+                            @Value("${order.resilience.limiter.backoff-ratio:0.9}") double backoffRatio) {
+        this.meterRegistry = meterRegistry;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.latencyThreshold = latencyThreshold;
+        this.backoffRatio = backoffRatio;
+    }
+
+    @Bean
+    public CircuitBreakerRegistry circuitBreakerRegistry(
+            @Value("${order.resilience.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+            @Value("${order.resilience.circuit-breaker.slow-call-duration:2s}") Duration slowCallDuration,
+            @Value("${order.resilience.circuit-breaker.slow-call-rate-threshold:80}") float slowCallRateThreshold,
+            @Value("${order.resilience.circuit-breaker.sliding-window-size:50}") int slidingWindowSize,
+            @Value("${order.resilience.circuit-breaker.open-duration:10s}") Duration openDuration) {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallDurationThreshold(slowCallDuration)
+                .slowCallRateThreshold(slowCallRateThreshold)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(Math.min(10, slidingWindowSize))
+                .waitDurationInOpenState(openDuration)
+                .permittedNumberOfCallsInHalfOpenState(5)
+                .ignoreExceptions(HttpClientErrorException.class)
+                .build();
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+
+    @Bean
+    public DownstreamGuard userServiceGuard(
+            CircuitBreakerRegistry circuitBreakerRegistry,
+            @Value("${order.resilience.limiter.user-service.max-limit:30}") int maxLimit,
+            @Value("${order.http.user-service.max-connections:40}") int maxConnections) {
+        return guard("user-service", circuitBreakerRegistry, maxLimit, maxConnections);
+    }
+
+    @Bean
+    public DownstreamGuard productServiceGuard(
+            CircuitBreakerRegistry circuitBreakerRegistry,
+            @Value("${order.resilience.limiter.product-service.max-limit:45}") int maxLimit,
+            @Value("${order.http.product-service.max-connections:60}") int maxConnections) {
+        return guard("product-service", circuitBreakerRegistry, maxLimit, maxConnections);
+    }
+
+    private DownstreamGuard guard(String service, CircuitBreakerRegistry circuitBreakerRegistry,
+                                  int maxLimit, int maxConnections) {
+        // Limiter phải chặn trước pool kết nối, nếu không request vượt mức sẽ xếp hàng chờ kết nối
+        // thay vì bị từ chối ngay; phần còn lại của pool dành cho các lần gửi thêm (hedging)
+        if (maxLimit >= maxConnections) {
+            throw new IllegalStateException("max-limit của " + service + " (" + maxLimit
+                    + ") phải nhỏ hơn số kết nối tối đa (" + maxConnections + ")");
+        }
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+                Math.min(initialLimit, maxLimit), minLimit, maxLimit, latencyThreshold, backoffRatio);
+        return new DownstreamGuard(service, limiter, circuitBreakerRegistry.circuitBreaker(service), meterRegistry);
+    }
+}
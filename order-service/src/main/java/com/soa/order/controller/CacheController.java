@@ -0,0 +1,20 @@
+package com.soa.order.controller;
+
+import com.soa.order.client.UserLookupCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+// Endpoint nội bộ cho các service khác, không đi qua API Gateway
+@RestController
+@RequestMapping("/internal/cache")
+@RequiredArgsConstructor
+public class CacheController {
+    private final UserLookupCache userLookupCache;
+
+    @DeleteMapping("/users/{userId}")
+    public ResponseEntity<Void> evictUser(@PathVariable Long userId) {
+        userLookupCache.invalidate(userId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -2,14 +2,30 @@ package com.soa.order.controller;
 
 import com.soa.order.dto.CreateOrderRequest;
 import com.soa.order.dto.OrderDTO;
+import com.soa.order.dto.OrderStatsDTO;
+import com.soa.order.dto.OrderStatusEventDTO;
+import com.soa.order.dto.UserOrderStatsDTO;
 import com.soa.order.model.Order;
+import com.soa.order.service.OrderBulkImportService;
 import com.soa.order.service.OrderService;
+import com.soa.order.service.OrderStatsService;
+import com.soa.order.service.OrderStreamService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -17,10 +33,60 @@ import java.util.List;
 @RequiredArgsConstructor
 public class OrderController {
     private final OrderService orderService;
+    private final OrderBulkImportService orderBulkImportService;
+    private final OrderStatsService orderStatsService;
+    private final OrderStreamService orderStreamService;
 
     @GetMapping
-    public ResponseEntity<List<OrderDTO>> getAllOrders() {
-        return ResponseEntity.ok(orderService.getAllOrders());
+    public ResponseEntity<List<OrderDTO>> getAllOrders(
+            @PageableDefault(size = 20, sort = "id") Pageable pageable) {
+        return pageResponse(orderService.getAllOrders(pageable));
+    }
+
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(required = false) Order.OrderStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        StreamingResponseBody body = out -> orderService.exportOrders(status, from, to, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<OrderStatsDTO> getStats() {
+        return ResponseEntity.ok(orderStatsService.getStats());
+    }
+
+    @GetMapping("/stats/users/{userId}")
+    public ResponseEntity<UserOrderStatsDTO> getUserStats(@PathVariable Long userId) {
+        return ResponseEntity.ok(orderStatsService.getUserStats(userId));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamUserOrders(@RequestParam Long userId) {
+        try {
+            return ResponseEntity.ok(orderStreamService.subscribe(userId, null, null));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @GetMapping(value = "/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamOrder(@PathVariable Long id) {
+        OrderStatusEventDTO current;
+        try {
+            current = orderService.getOrderStatus(id);
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            // Gửi trạng thái hiện tại trước để client không bỏ lỡ thay đổi xảy ra trước khi kết nối
+            return ResponseEntity.ok(orderStreamService.subscribe(current.getUserId(), id, current));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
     }
 
     @GetMapping("/{id}")
@@ -34,8 +100,10 @@ public class OrderController {
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<OrderDTO>> getOrdersByUserId(@PathVariable Long userId) {
-        return ResponseEntity.ok(orderService.getOrdersByUserId(userId));
+    public ResponseEntity<List<OrderDTO>> getOrdersByUserId(
+            @PathVariable Long userId,
+            @PageableDefault(size = 20, sort = "id") Pageable pageable) {
+        return pageResponse(orderService.getOrdersByUserId(userId, pageable));
     }
 
     @PostMapping
@@ -48,6 +116,15 @@ public class OrderController {
         }
     }
 
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"})
+    public ResponseEntity<?> importOrders(InputStream body) {
+        try {
+            return ResponseEntity.ok(orderBulkImportService.importOrders(body));
+        } catch (IOException | RuntimeException e) {
+            return ResponseEntity.badRequest().body("Dữ liệu nhập không hợp lệ: " + e.getMessage());
+        }
+    }
+
     @PutMapping("/{id}/status")
     public ResponseEntity<?> updateOrderStatus(@PathVariable Long id, 
                                                @RequestParam Order.OrderStatus status) {
@@ -68,8 +145,12 @@ public class OrderController {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
-}
-
-
-
 
+    // Body vẫn là mảng JSON như trước, thông tin phân trang trả về qua header
+    private ResponseEntity<List<OrderDTO>> pageResponse(Page<OrderDTO> page) {
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(page.getTotalElements()))
+                .header("X-Total-Pages", String.valueOf(page.getTotalPages()))
+                .body(page.getContent());
+    }
+}
@@ -0,0 +1,42 @@
+package com.soa.order.controller;
+
+import com.soa.order.dto.CreateOrderRequest;
+import com.soa.order.dto.OrderIntakeDTO;
+import com.soa.order.service.OrderIntakeService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+
+@RestController
+@RequestMapping("/api/orders/intake")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "order.intake", name = "enabled", havingValue = "true")
+public class OrderIntakeController {
+    private final OrderIntakeService orderIntakeService;
+
+    @PostMapping
+    public ResponseEntity<?> submitOrder(@RequestHeader("Idempotency-Key") String idempotencyKey,
+                                         @Valid @RequestBody CreateOrderRequest request) {
+        try {
+            OrderIntakeDTO intake = orderIntakeService.submit(idempotencyKey, request);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/orders/intake/" + idempotencyKey))
+                    .body(intake);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/{idempotencyKey}")
+    public ResponseEntity<OrderIntakeDTO> getIntake(@PathVariable String idempotencyKey) {
+        try {
+            return ResponseEntity.ok(orderIntakeService.getIntake(idempotencyKey));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.soa.order.dto;
+
+import com.soa.order.model.Order;
+import com.soa.order.model.OrderIntake;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderIntakeDTO {
+    private String idempotencyKey;
+    private Long orderId;
+    private OrderIntake.IntakeStatus intakeStatus;
+    private Order.OrderStatus orderStatus;
+    private String message;
+    private LocalDateTime createdAt;
+    private LocalDateTime processedAt;
+}
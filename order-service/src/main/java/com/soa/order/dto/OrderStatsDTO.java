@@ -0,0 +1,19 @@
+package com.soa.order.dto;
+
+import com.soa.order.model.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatsDTO {
+    private long totalOrders;
+    // Không tính đơn đã hủy hoặc bị từ chối
+    private BigDecimal totalRevenue;
+    private Map<Order.OrderStatus, OrderStatusStatsDTO> byStatus;
+}
@@ -0,0 +1,20 @@
+package com.soa.order.dto;
+
+import com.soa.order.model.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusEventDTO {
+    private Long orderId;
+    private Long userId;
+    private Order.OrderStatus status;
+    private BigDecimal totalAmount;
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,15 @@
+package com.soa.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusStatsDTO {
+    private long orderCount;
+    private BigDecimal revenue;
+}
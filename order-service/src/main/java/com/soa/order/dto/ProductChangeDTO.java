@@ -0,0 +1,19 @@
+package com.soa.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// Một thay đổi trong feed GET /api/products/changes của Product Service
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductChangeDTO {
+    private Long id;
+    private boolean deleted;
+    private String name;
+    private BigDecimal price;
+    private Integer stock;
+}
@@ -0,0 +1,21 @@
+package com.soa.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductChangesDTO {
+    // Nhật ký của lần khởi động hiện tại; khác với lần đọc trước nghĩa là phải đồng bộ lại
+    private long logId;
+    // Phiên bản đã đọc tới, dùng làm since cho lần đọc tiếp theo
+    private long version;
+    private long head;
+    // since quá cũ hoặc không hợp lệ: tải lại toàn bộ danh mục rồi đọc tiếp từ version
+    private boolean resync;
+    private List<ProductChangeDTO> changes;
+}
@@ -0,0 +1,21 @@
+package com.soa.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockCommand {
+    private String commandId;
+    private CommandType type;
+    private String reference;
+    private List<OrderItemRequest> items;
+
+    public enum CommandType {
+        RESERVE, RELEASE
+    }
+}
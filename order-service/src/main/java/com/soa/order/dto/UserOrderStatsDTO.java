@@ -0,0 +1,16 @@
+package com.soa.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserOrderStatsDTO {
+    private Long userId;
+    private long orderCount;
+    private BigDecimal revenue;
+}
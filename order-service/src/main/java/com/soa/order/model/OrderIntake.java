@@ -0,0 +1,59 @@
+package com.soa.order.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "order_intakes", indexes = {
+        @Index(name = "idx_order_intakes_status_lease", columnList = "status, leaseExpiresAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderIntake {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 100)
+    private String idempotencyKey;
+
+    @Column(nullable = false)
+    private Long orderId;
+
+    // CreateOrderRequest dạng JSON, được worker đọc lại khi xử lý
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private IntakeStatus status;
+
+    @Column(length = 1000)
+    private String errorMessage;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime processedAt;
+
+    // Hạn giữ yêu cầu của worker đang xử lý; hết hạn mà chưa DONE thì yêu cầu được đưa lại vào hàng đợi
+    private LocalDateTime leaseExpiresAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (status == null) {
+            status = IntakeStatus.QUEUED;
+        }
+    }
+
+    public enum IntakeStatus {
+        QUEUED, PROCESSING, DONE
+    }
+}
@@ -0,0 +1,27 @@
+package com.soa.order.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// Số đơn và tổng tiền theo từng trạng thái, được cập nhật cùng transaction với đơn hàng
+@Entity
+@Table(name = "order_status_summaries")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusSummary {
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private Order.OrderStatus status;
+
+    @Column(nullable = false)
+    private long orderCount;
+
+    @Column(nullable = false)
+    private BigDecimal revenue;
+}
@@ -0,0 +1,83 @@
+package com.soa.order.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Lệnh gửi sang Product Service, được ghi cùng transaction với đơn hàng và gửi đi bởi OutboxRelay
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_outbox_status_next_attempt", columnList = "status, nextAttemptAt"),
+        @Index(name = "idx_outbox_aggregate", columnList = "aggregateId"),
+        @Index(name = "idx_outbox_status_created", columnList = "status, createdAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_seq")
+    @SequenceGenerator(name = "outbox_event_seq", sequenceName = "outbox_events_seq", allocationSize = 50)
+    private Long id;
+
+    // ID đơn hàng; các event của cùng một đơn được gửi theo đúng thứ tự
+    @Column(nullable = false)
+    private Long aggregateId;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private EventType type;
+
+    @Column(nullable = false, length = 100)
+    private String commandId;
+
+    @Column(length = 100)
+    private String reference;
+
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private EventStatus status;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime deliveredAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+        if (status == null) {
+            status = EventStatus.PENDING;
+        }
+        if (attempts == null) {
+            attempts = 0;
+        }
+    }
+
+    public enum EventType {
+        STOCK_RESERVE, STOCK_RELEASE
+    }
+
+    public enum EventStatus {
+        PENDING, DELIVERED, FAILED
+    }
+}
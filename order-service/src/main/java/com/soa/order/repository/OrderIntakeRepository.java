@@ -0,0 +1,37 @@
+package com.soa.order.repository;
+
+import com.soa.order.model.OrderIntake;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OrderIntakeRepository extends JpaRepository<OrderIntake, Long> {
+    Optional<OrderIntake> findByIdempotencyKey(String idempotencyKey);
+
+    List<OrderIntake> findByStatusOrderById(OrderIntake.IntakeStatus status, Limit limit);
+
+    // Cập nhật có điều kiện trên trạng thái cũ, dùng để một worker duy nhất chiếm được yêu cầu
+    @Modifying
+    @Query("UPDATE OrderIntake i SET i.status = :to, i.leaseExpiresAt = :leaseExpiresAt"
+            + " WHERE i.id = :id AND i.status = :from")
+    int claim(@Param("id") Long id,
+              @Param("from") OrderIntake.IntakeStatus from,
+              @Param("to") OrderIntake.IntakeStatus to,
+              @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+
+    // Đưa lại vào hàng đợi các yêu cầu mà worker chiếm rồi không hoàn tất (ví dụ process bị dừng giữa chừng)
+    @Modifying
+    @Query("UPDATE OrderIntake i SET i.status = :queued, i.leaseExpiresAt = null"
+            + " WHERE i.status = :processing AND i.leaseExpiresAt < :now")
+    int requeueExpired(@Param("processing") OrderIntake.IntakeStatus processing,
+                       @Param("queued") OrderIntake.IntakeStatus queued,
+                       @Param("now") LocalDateTime now);
+}
@@ -1,15 +1,36 @@
 package com.soa.order.repository;
 
 import com.soa.order.model.Order;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
-    List<Order> findByUserId(Long userId);
+    Page<Order> findByUserId(Long userId, Pageable pageable);
     List<Order> findByStatus(Order.OrderStatus status);
+
+    // Keyset pagination theo id cho export: không dùng offset nên chi phí mỗi chunk không tăng dần
+    @Query("SELECT o FROM Order o WHERE o.id > :afterId"
+            + " AND (:status IS NULL OR o.status = :status)"
+            + " AND (:from IS NULL OR o.createdAt >= :from)"
+            + " AND (:to IS NULL OR o.createdAt < :to)"
+            + " ORDER BY o.id")
+    List<Order> findExportChunk(@Param("afterId") Long afterId,
+                                @Param("status") Order.OrderStatus status,
+                                @Param("from") LocalDateTime from,
+                                @Param("to") LocalDateTime to,
+                                Limit limit);
+
+    @Query("SELECT o.status, COUNT(o), COALESCE(SUM(o.totalAmount), 0) FROM Order o GROUP BY o.status")
+    List<Object[]> summarizeByStatus();
 }
 
 
@@ -0,0 +1,23 @@
+package com.soa.order.repository;
+
+import com.soa.order.model.Order;
+import com.soa.order.model.OrderStatusSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+
+@Repository
+public interface OrderStatusSummaryRepository extends JpaRepository<OrderStatusSummary, Order.OrderStatus> {
+    // Native vì Hibernate sinh CAST sai kiểu cho tham số BigDecimal trong phép cộng của JPQL UPDATE
+    @Modifying
+    @Query(value = "UPDATE order_status_summaries SET order_count = order_count + :count,"
+            + " revenue = revenue + :revenue WHERE status = :status",
+            nativeQuery = true)
+    int increment(@Param("status") String status,
+                  @Param("count") long count,
+                  @Param("revenue") BigDecimal revenue);
+}
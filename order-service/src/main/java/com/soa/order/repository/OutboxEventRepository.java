@@ -0,0 +1,32 @@
+package com.soa.order.repository;
+
+import com.soa.order.model.OutboxEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    // Chỉ lấy event đầu tiên còn chờ của mỗi đơn để giữ thứ tự giữ hàng -> hoàn hàng
+    @Query("SELECT e FROM OutboxEvent e"
+            + " WHERE e.status = :pending"
+            + " AND e.nextAttemptAt <= :now"
+            + " AND NOT EXISTS (SELECT p.id FROM OutboxEvent p"
+            + "   WHERE p.aggregateId = e.aggregateId"
+            + "   AND p.status = :pending"
+            + "   AND p.id < e.id)"
+            + " ORDER BY e.id")
+    List<OutboxEvent> findDeliverable(@Param("pending") OutboxEvent.EventStatus pending,
+                                      @Param("now") LocalDateTime now,
+                                      Limit limit);
+
+    @Query("SELECT e.id FROM OutboxEvent e WHERE e.status = :status AND e.createdAt < :before ORDER BY e.id")
+    List<Long> findIdsCreatedBefore(@Param("status") OutboxEvent.EventStatus status,
+                                    @Param("before") LocalDateTime before,
+                                    Limit limit);
+}
@@ -0,0 +1,34 @@
+package com.soa.order.repository;
+
+import com.soa.order.model.UserOrderSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+
+@Repository
+public interface UserOrderSummaryRepository extends JpaRepository<UserOrderSummary, Long> {
+    // Cộng dồn trong một câu lệnh, tự tạo dòng cho user mới
+    @Modifying
+    @Query(value = "MERGE INTO user_order_summaries t"
+            + " USING (SELECT CAST(:userId AS BIGINT) AS user_id, CAST(:count AS BIGINT) AS order_count,"
+            + " CAST(:revenue AS DECIMAL(38, 2)) AS revenue) s ON (t.user_id = s.user_id)"
+            + " WHEN MATCHED THEN UPDATE SET order_count = t.order_count + s.order_count,"
+            + " revenue = t.revenue + s.revenue"
+            + " WHEN NOT MATCHED THEN INSERT (user_id, order_count, revenue)"
+            + " VALUES (s.user_id, s.order_count, s.revenue)",
+            nativeQuery = true)
+    int increment(@Param("userId") Long userId,
+                  @Param("count") long count,
+                  @Param("revenue") BigDecimal revenue);
+
+    @Modifying
+    @Query(value = "INSERT INTO user_order_summaries (user_id, order_count, revenue)"
+            + " SELECT user_id, COUNT(*), COALESCE(SUM(CASE WHEN status IN ('CANCELLED', 'REJECTED')"
+            + " THEN 0 ELSE total_amount END), 0) FROM orders GROUP BY user_id",
+            nativeQuery = true)
+    int rebuildFromOrders();
+}
@@ -0,0 +1,61 @@
+package com.soa.order.resilience;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.function.Supplier;
+
+/**
+ * Bảo vệ lời gọi tới một service phụ thuộc: giới hạn đồng thời thích ứng (đóng vai trò bulkhead
+ * riêng cho từng service) và circuit breaker để fail nhanh khi service đó đang có sự cố.
+ */
+public class DownstreamGuard {
+    private final String service;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final CircuitBreaker circuitBreaker;
+    private final Counter rejected;
+
+    public DownstreamGuard(String service, AdaptiveConcurrencyLimiter limiter, CircuitBreaker circuitBreaker,
+                           MeterRegistry meterRegistry) {
+        this.service = service;
+        this.limiter = limiter;
+        this.circuitBreaker = circuitBreaker;
+        Gauge.builder("downstream.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .tag("service", service)
+                .register(meterRegistry);
+        Gauge.builder("downstream.concurrency.in-flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .tag("service", service)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("downstream.concurrency.rejected")
+                .tag("service", service)
+                .register(meterRegistry);
+    }
+
+    public <T> T execute(Supplier<T> call) {
+        if (!limiter.tryAcquire()) {
+            rejected.increment();
+            throw new RuntimeException(service + " đang quá tải, vui lòng thử lại sau");
+        }
+
+        long start = System.nanoTime();
+        try {
+            T result = circuitBreaker.executeSupplier(call);
+            limiter.onSuccess(System.nanoTime() - start);
+            return result;
+        } catch (CallNotPermittedException e) {
+            limiter.onIgnored();
+            throw new RuntimeException(service + " tạm thời không khả dụng");
+        } catch (HttpClientErrorException e) {
+            // Lỗi 4xx là phản hồi hợp lệ của service, không phải dấu hiệu quá tải
+            limiter.onSuccess(System.nanoTime() - start);
+            throw e;
+        } catch (RuntimeException e) {
+            limiter.onDropped();
+            throw e;
+        }
+    }
+}
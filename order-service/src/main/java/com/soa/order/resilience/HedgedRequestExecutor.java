@@ -0,0 +1,253 @@
+package com.soa.order.resilience;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gửi GET idempotent tới một instance; nếu chưa có phản hồi sau độ trễ lấy từ percentile latency gần đây
+ * thì gửi thêm một lần tới instance khác. Phản hồi đến trước được dùng, lời gọi còn lại bị hủy.
+ * Số lần gửi thêm bị giới hạn bởi ngân sách (tỉ lệ trên tổng số request).
+ */
+public class HedgedRequestExecutor {
+    private final String service;
+    private final boolean enabled;
+    private final DiscoveryClient discoveryClient;
+    private final CloseableHttpClient httpClient;
+    private final RequestConfig requestConfig;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolTaskExecutor executor;
+    private final long minDelayNanos;
+    private final long initialDelayNanos;
+    private final double budgetRatio;
+    private final double budgetBurst;
+    private double budget;
+
+    private final Timer latency;
+    private final Counter requests;
+    private final Counter hedges;
+    private final Counter hedgeWins;
+    private final Counter budgetExhausted;
+
+    public HedgedRequestExecutor(String service, boolean enabled, DiscoveryClient discoveryClient,
+                                 CloseableHttpClient httpClient, RequestConfig requestConfig,
+                                 ObjectMapper objectMapper, ThreadPoolTaskExecutor executor,
+                                 double percentile, Duration minDelay, Duration initialDelay,
+                                 double budgetRatio, double budgetBurst, MeterRegistry meterRegistry) {
+        this.service = service;
+        this.enabled = enabled;
+        this.discoveryClient = discoveryClient;
+        this.httpClient = httpClient;
+        this.requestConfig = requestConfig;
+        this.objectMapper = objectMapper;
+        this.executor = executor;
+        this.minDelayNanos = minDelay.toNanos();
+        this.initialDelayNanos = initialDelay.toNanos();
+        this.budgetRatio = budgetRatio;
+        this.budgetBurst = budgetBurst;
+        this.budget = budgetBurst;
+
+        this.latency = Timer.builder("downstream.hedge.latency")
+                .tag("service", service)
+                .publishPercentiles(percentile)
+                .distributionStatisticExpiry(Duration.ofMinutes(1))
+                .register(meterRegistry);
+        this.requests = counter("downstream.hedge.requests", meterRegistry);
+        this.hedges = counter("downstream.hedge.sent", meterRegistry);
+        this.hedgeWins = counter("downstream.hedge.wins", meterRegistry);
+        this.budgetExhausted = counter("downstream.hedge.budget-exhausted", meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public <T> T get(String path, Class<T> type) {
+        List<ServiceInstance> instances = discoveryClient.getInstances(service);
+        if (instances.isEmpty()) {
+            throw new IllegalStateException("Không tìm thấy instance nào của " + service);
+        }
+        requests.increment();
+        depositBudget();
+
+        int first = ThreadLocalRandom.current().nextInt(instances.size());
+        CompletionService<T> completion = new ExecutorCompletionService<>(executor);
+        List<Attempt<T>> attempts = new ArrayList<>();
+        attempts.add(submit(completion, instances.get(first), path, type, false));
+
+        try {
+            Future<T> done = completion.poll(hedgeDelayNanos(), TimeUnit.NANOSECONDS);
+            if (done == null) {
+                hedge(completion, attempts, instances, first, path, type);
+            }
+
+            int finished = 0;
+            Throwable failure = null;
+            while (true) {
+                if (done == null) {
+                    done = completion.take();
+                }
+                Attempt<T> attempt = attemptOf(attempts, done);
+                try {
+                    T result = done.get();
+                    latency.record(System.nanoTime() - attempt.startNanos, TimeUnit.NANOSECONDS);
+                    if (attempt.hedge) {
+                        hedgeWins.increment();
+                    }
+                    return result;
+                } catch (ExecutionException e) {
+                    // 4xx là câu trả lời chắc chắn, hỏi instance khác cũng không khác
+                    if (e.getCause() instanceof HttpClientErrorException clientError) {
+                        throw clientError;
+                    }
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                    // Lần đầu lỗi nhanh: thử ngay instance khác nếu còn ngân sách
+                    hedge(completion, attempts, instances, first, path, type);
+                    if (++finished == attempts.size()) {
+                        throw propagate(failure);
+                    }
+                }
+                done = null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Bị ngắt khi chờ phản hồi từ " + service);
+        } finally {
+            for (Attempt<T> attempt : attempts) {
+                if (!attempt.future.isDone()) {
+                    attempt.request.cancel();
+                    attempt.future.cancel(true);
+                }
+            }
+        }
+    }
+
+    private <T> void hedge(CompletionService<T> completion, List<Attempt<T>> attempts,
+                           List<ServiceInstance> instances, int first, String path, Class<T> type) {
+        if (attempts.size() > 1 || instances.size() < 2) {
+            return;
+        }
+        if (!withdrawBudget()) {
+            budgetExhausted.increment();
+            return;
+        }
+        int other = (first + 1 + ThreadLocalRandom.current().nextInt(instances.size() - 1)) % instances.size();
+        try {
+            attempts.add(submit(completion, instances.get(other), path, type, true));
+            hedges.increment();
+        } catch (TaskRejectedException e) {
+            // Pool đầy thì bỏ qua lần gửi thêm, vẫn chờ lần gửi đầu
+        }
+    }
+
+    private <T> Attempt<T> submit(CompletionService<T> completion, ServiceInstance instance,
+                                  String path, Class<T> type, boolean hedge) {
+        HttpGet request = new HttpGet(URI.create(instance.getUri() + path));
+        Attempt<T> attempt = new Attempt<>(request, hedge);
+        attempt.future = completion.submit(() -> {
+            HttpClientContext context = HttpClientContext.create();
+            context.setRequestConfig(requestConfig);
+            return httpClient.execute(request, context, response -> read(response, type));
+        });
+        return attempt;
+    }
+
+    private <T> T read(ClassicHttpResponse response, Class<T> type) throws IOException {
+        byte[] body = response.getEntity() == null ? new byte[0] : EntityUtils.toByteArray(response.getEntity());
+        HttpStatusCode status = HttpStatusCode.valueOf(response.getCode());
+        if (status.is4xxClientError()) {
+            throw HttpClientErrorException.create(status, response.getReasonPhrase(), null, body,
+                    StandardCharsets.UTF_8);
+        }
+        if (status.isError()) {
+            throw HttpServerErrorException.create(status, response.getReasonPhrase(), null, body,
+                    StandardCharsets.UTF_8);
+        }
+        return body.length == 0 ? null : objectMapper.readValue(body, type);
+    }
+
+    private long hedgeDelayNanos() {
+        if (latency.count() == 0) {
+            return initialDelayNanos;
+        }
+        for (ValueAtPercentile value : latency.takeSnapshot().percentileValues()) {
+            return Math.max(minDelayNanos, (long) value.value(TimeUnit.NANOSECONDS));
+        }
+        return initialDelayNanos;
+    }
+
+    private synchronized void depositBudget() {
+        budget = Math.min(budgetBurst, budget + budgetRatio);
+    }
+
+    private synchronized boolean withdrawBudget() {
+        if (budget < 1) {
+            return false;
+        }
+        budget -= 1;
+        return true;
+    }
+
+    private RuntimeException propagate(Throwable failure) {
+        if (failure instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        return new ResourceAccessException("I/O error on GET request to " + service + ": " + failure.getMessage());
+    }
+
+    private Counter counter(String name, MeterRegistry meterRegistry) {
+        return Counter.builder(name).tag("service", service).register(meterRegistry);
+    }
+
+    private static <T> Attempt<T> attemptOf(List<Attempt<T>> attempts, Future<T> future) {
+        for (Attempt<T> attempt : attempts) {
+            if (attempt.future == future) {
+                return attempt;
+            }
+        }
+        throw new IllegalStateException("Future không thuộc lời gọi nào");
+    }
+
+    private static final class Attempt<T> {
+        private final HttpGet request;
+        private final boolean hedge;
+        private final long startNanos = System.nanoTime();
+        private Future<T> future;
+
+        private Attempt(HttpGet request, boolean hedge) {
+            this.request = request;
+            this.hedge = hedge;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.soa.order.service;
+
+import com.soa.order.dto.ProductDTO;
+import com.soa.order.dto.UserDTO;
+import lombok.Value;
+
+import java.util.Map;
+
+@Value
+public class AssembledOrder {
+    UserDTO user;
+    Map<Long, ProductDTO> products;
+}
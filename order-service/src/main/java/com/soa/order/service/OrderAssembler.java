@@ -0,0 +1,132 @@
+package com.soa.order.service;
+
+import com.soa.order.client.ProductCatalogueReplica;
+import com.soa.order.client.ProductServiceClient;
+import com.soa.order.client.UserServiceClient;
+import com.soa.order.dto.CreateOrderRequest;
+import com.soa.order.dto.OrderItemRequest;
+import com.soa.order.dto.ProductDTO;
+import com.soa.order.dto.UserDTO;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Gọi User Service và Product Service song song để chuẩn bị dữ liệu cho một đơn hàng.
+ * Các lời gọi dùng chung một deadline; khi một lời gọi lỗi hoặc hết giờ, các lời gọi còn lại bị hủy.
+ * Khi bản sao danh mục đang cập nhật, sản phẩm được lấy từ bản sao và chỉ các sản phẩm thiếu mới gọi remote.
+ */
+@Component
+public class OrderAssembler {
+    private final UserServiceClient userServiceClient;
+    private final ProductServiceClient productServiceClient;
+    private final ProductCatalogueReplica catalogueReplica;
+    private final ThreadPoolTaskExecutor userServiceExecutor;
+    private final ThreadPoolTaskExecutor productServiceExecutor;
+    private final Duration timeout;
+    private final int productBatchSize;
+
+    public OrderAssembler(UserServiceClient userServiceClient,
+                          ProductServiceClient productServiceClient,
+                          ProductCatalogueReplica catalogueReplica,
+                          @Qualifier("userServiceExecutor") ThreadPoolTaskExecutor userServiceExecutor,
+                          @Qualifier("productServiceExecutor") ThreadPoolTaskExecutor productServiceExecutor,
+                          @Value("${order.assembly.timeout:5s}") Duration timeout,
+                          @Value("${order.assembly.product-batch-size:50}") int productBatchSize) {
+        this.userServiceClient = userServiceClient;
+        this.productServiceClient = productServiceClient;
+        this.catalogueReplica = catalogueReplica;
+        this.userServiceExecutor = userServiceExecutor;
+        this.productServiceExecutor = productServiceExecutor;
+        this.timeout = timeout;
+        this.productBatchSize = productBatchSize;
+    }
+
+    @SuppressWarnings("unchecked")
+    public AssembledOrder assemble(CreateOrderRequest request) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        // Mỗi service chạy trên pool riêng nhưng cùng đổ kết quả vào một hàng đợi hoàn thành
+        BlockingQueue<Future<Object>> completed = new LinkedBlockingQueue<>();
+        CompletionService<Object> userCompletion = new ExecutorCompletionService<>(userServiceExecutor, completed);
+        CompletionService<Object> productCompletion =
+                new ExecutorCompletionService<>(productServiceExecutor, completed);
+        List<Future<Object>> calls = new ArrayList<>();
+
+        List<Long> productIds = request.getItems().stream()
+                .map(OrderItemRequest::getProductId)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, ProductDTO> products = catalogueReplica.isReady()
+                ? new HashMap<>(catalogueReplica.find(productIds))
+                : new HashMap<>();
+        productIds.removeAll(products.keySet());
+
+        try {
+            Future<Object> userCall = submit(userCompletion, calls,
+                    () -> userServiceClient.getUserById(request.getUserId()));
+            List<Future<Object>> productCalls = new ArrayList<>();
+            for (List<Long> batch : productBatches(productIds)) {
+                productCalls.add(submit(productCompletion, calls, () -> productServiceClient.getProductsByIds(batch)));
+            }
+
+            // Chờ theo thứ tự hoàn thành để phát hiện lỗi sớm nhất có thể
+            for (int i = 0; i < calls.size(); i++) {
+                Future<Object> done = completed.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (done == null) {
+                    throw new RuntimeException("Quá thời gian chờ thông tin user và sản phẩm ("
+                            + timeout.toMillis() + "ms)");
+                }
+                done.get();
+            }
+
+            for (Future<Object> productCall : productCalls) {
+                for (ProductDTO product : (List<ProductDTO>) productCall.get()) {
+                    products.put(product.getId(), product);
+                }
+            }
+            return new AssembledOrder((UserDTO) userCall.get(), products);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException(e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Bị gián đoạn khi chuẩn bị đơn hàng", e);
+        } finally {
+            // Hủy các lời gọi còn đang chạy (không ảnh hưởng tới lời gọi đã xong)
+            calls.forEach(call -> call.cancel(true));
+        }
+    }
+
+    private Future<Object> submit(CompletionService<Object> completion, List<Future<Object>> calls,
+                                  Callable<Object> call) {
+        Future<Object> future = completion.submit(call);
+        calls.add(future);
+        return future;
+    }
+
+    private List<List<Long>> productBatches(List<Long> productIds) {
+        List<List<Long>> batches = new ArrayList<>();
+        for (int from = 0; from < productIds.size(); from += productBatchSize) {
+            batches.add(productIds.subList(from, Math.min(from + productBatchSize, productIds.size())));
+        }
+        return batches;
+    }
+}
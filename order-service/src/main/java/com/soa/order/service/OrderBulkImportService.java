@@ -0,0 +1,196 @@
+package com.soa.order.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.soa.order.dto.BulkImportError;
+import com.soa.order.dto.BulkImportResult;
+import com.soa.order.dto.OrderDTO;
+import com.soa.order.dto.OrderItemDTO;
+import com.soa.order.model.Order;
+import com.soa.order.model.OrderItem;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Nhập đơn hàng lịch sử từ hệ thống cũ. Đầu vào là mảng JSON hoặc NDJSON các OrderDTO
+ * (cùng định dạng với export), được đọc tuần tự và ghi theo từng chunk. Nếu ghi chunk lỗi, các dòng của chunk
+ * được ghi lại từng dòng để lỗi được báo cho đúng dòng gây ra. Bản ghi sai kiểu dữ liệu được báo lỗi như bản ghi
+ * không hợp lệ; JSON sai cú pháp làm dừng việc đọc nhưng các bản ghi trước đó vẫn được nhập và kết quả vẫn trả về.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderBulkImportService {
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final OrderStatsService orderStatsService;
+
+    @Value("${order.bulk.chunk-size:500}")
+    private int chunkSize;
+
+    public BulkImportResult importOrders(InputStream in) throws IOException {
+        long start = System.nanoTime();
+        long received = 0;
+        long imported = 0;
+        long failed = 0;
+        List<BulkImportError> errors = new ArrayList<>();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+
+        try (MappingIterator<OrderDTO> records = objectMapper.readerFor(OrderDTO.class).readValues(in)) {
+            while (true) {
+                long index = received;
+                OrderDTO record;
+                try {
+                    if (!records.hasNextValue()) {
+                        break;
+                    }
+                    received++;
+                    record = records.nextValue();
+                } catch (JsonParseException e) {
+                    // Sai cú pháp JSON: không xác định được bản ghi kế tiếp bắt đầu từ đâu nên dừng đọc,
+                    // các bản ghi đã đọc vẫn được ghi và kết quả trả về cho biết đã nhập tới đâu
+                    received = index + 1;
+                    failed++;
+                    addError(errors, index, "Dừng đọc do dữ liệu không phải JSON hợp lệ: " + e.getOriginalMessage());
+                    break;
+                } catch (JsonProcessingException e) {
+                    // Sai kiểu dữ liệu của một bản ghi: bỏ qua bản ghi đó, MappingIterator tự đọc tiếp bản ghi sau
+                    received = index + 1;
+                    failed++;
+                    addError(errors, index, e.getOriginalMessage());
+                    continue;
+                }
+                try {
+                    chunk.add(new Row(index, record, toEntity(record)));
+                } catch (RuntimeException e) {
+                    failed++;
+                    addError(errors, index, e.getMessage());
+                }
+                if (chunk.size() == chunkSize) {
+                    long saved = persistChunk(chunk, errors);
+                    imported += saved;
+                    failed += chunk.size() - saved;
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            long saved = persistChunk(chunk, errors);
+            imported += saved;
+            failed += chunk.size() - saved;
+        }
+
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        double rowsPerSecond = imported * 1000.0 / elapsedMs;
+        log.info("Bulk import finished: {} imported, {} failed in {} ms ({} rows/s)",
+                imported, failed, elapsedMs, Math.round(rowsPerSecond));
+        return new BulkImportResult(received, imported, failed, elapsedMs, rowsPerSecond, errors);
+    }
+
+    private long persistChunk(List<Row> rows, List<BulkImportError> errors) {
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                List<Order> orders = rows.stream().map(Row::order).collect(Collectors.toList());
+                orders.forEach(entityManager::persist);
+                orderStatsService.recordCreated(orders);
+                // flush để Hibernate gửi các INSERT theo JDBC batch, clear để persistence context không phình ra
+                entityManager.flush();
+                entityManager.clear();
+            });
+            return rows.size();
+        } catch (RuntimeException e) {
+            // Một dòng lỗi làm hỏng cả chunk: ghi lại từng dòng để chỉ dòng lỗi bị bỏ và báo đúng lý do
+            log.warn("Bulk import chunk starting at record {} failed, retrying row by row: {}",
+                    rows.get(0).index(), e.getMessage());
+            long saved = 0;
+            for (Row row : rows) {
+                if (persistOne(row, errors)) {
+                    saved++;
+                }
+            }
+            return saved;
+        }
+    }
+
+    private boolean persistOne(Row row, List<BulkImportError> errors) {
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                // Entity của lần ghi chunk đã được gán ID trong transaction bị rollback nên dựng lại từ bản ghi
+                Order order = toEntity(row.record());
+                entityManager.persist(order);
+                orderStatsService.recordCreated(List.of(order));
+                entityManager.flush();
+                entityManager.clear();
+            });
+            return true;
+        } catch (RuntimeException e) {
+            addError(errors, row.index(), e.getMessage());
+            return false;
+        }
+    }
+
+    private Order toEntity(OrderDTO record) {
+        if (record == null || record.getUserId() == null) {
+            throw new RuntimeException("User ID không được để trống");
+        }
+        if (record.getItems() == null || record.getItems().isEmpty()) {
+            throw new RuntimeException("Danh sách sản phẩm không được để trống");
+        }
+
+        Order order = new Order();
+        order.setUserId(record.getUserId());
+        order.setStatus(record.getStatus());
+        order.setCreatedAt(record.getCreatedAt());
+
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        for (OrderItemDTO itemRecord : record.getItems()) {
+            if (itemRecord.getProductId() == null) {
+                throw new RuntimeException("Product ID không được để trống");
+            }
+            if (itemRecord.getQuantity() == null || itemRecord.getQuantity() < 1) {
+                throw new RuntimeException("Số lượng phải lớn hơn 0");
+            }
+            if (itemRecord.getPrice() == null || itemRecord.getPrice().signum() < 0) {
+                throw new RuntimeException("Giá phải lớn hơn hoặc bằng 0");
+            }
+
+            OrderItem item = new OrderItem();
+            item.setOrder(order);
+            item.setProductId(itemRecord.getProductId());
+            item.setQuantity(itemRecord.getQuantity());
+            item.setPrice(itemRecord.getPrice());
+            item.setSubtotal(itemRecord.getSubtotal() != null
+                    ? itemRecord.getSubtotal()
+                    : itemRecord.getPrice().multiply(BigDecimal.valueOf(itemRecord.getQuantity())));
+            order.getItems().add(item);
+            totalAmount = totalAmount.add(item.getSubtotal());
+        }
+        order.setTotalAmount(record.getTotalAmount() != null ? record.getTotalAmount() : totalAmount);
+        return order;
+    }
+
+    private void addError(List<BulkImportError> errors, long index, String message) {
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new BulkImportError(index, message));
+        }
+    }
+
+    private record Row(long index, OrderDTO record, Order order) {
+    }
+}
@@ -0,0 +1,155 @@
+package com.soa.order.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.soa.order.dto.CreateOrderRequest;
+import com.soa.order.dto.OrderIntakeDTO;
+import com.soa.order.model.Order;
+import com.soa.order.model.OrderIntake;
+import com.soa.order.repository.OrderIntakeRepository;
+import com.soa.order.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(prefix = "order.intake", name = "enabled", havingValue = "true")
+public class OrderIntakeService {
+    private final OrderIntakeRepository intakeRepository;
+    private final OrderRepository orderRepository;
+    private final OrderService orderService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${order.intake.batch-size:50}")
+    private int batchSize;
+
+    @Value("${order.intake.lease:5m}")
+    private Duration lease;
+
+    public OrderIntakeDTO submit(String idempotencyKey, CreateOrderRequest request) {
+        String payload = toJson(request);
+        try {
+            return transactionTemplate.execute(tx -> intakeRepository.findByIdempotencyKey(idempotencyKey)
+                    .map(existing -> replay(existing, payload))
+                    .orElseGet(() -> enqueue(idempotencyKey, request.getUserId(), payload)));
+        } catch (DataIntegrityViolationException e) {
+            // Hai yêu cầu cùng key đến đồng thời: bên thua đọc lại kết quả của bên thắng
+            return intakeRepository.findByIdempotencyKey(idempotencyKey)
+                    .map(existing -> replay(existing, payload))
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public OrderIntakeDTO getIntake(String idempotencyKey) {
+        OrderIntake intake = intakeRepository.findByIdempotencyKey(idempotencyKey)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy yêu cầu với Idempotency-Key: " + idempotencyKey));
+        return toDTO(intake);
+    }
+
+    public void drainQueue() {
+        List<OrderIntake> queued;
+        do {
+            queued = intakeRepository.findByStatusOrderById(OrderIntake.IntakeStatus.QUEUED, Limit.of(batchSize));
+            for (OrderIntake intake : queued) {
+                if (claim(intake.getId())) {
+                    process(intake);
+                }
+            }
+        } while (queued.size() == batchSize);
+    }
+
+    public int requeueExpiredLeases() {
+        Integer requeued = transactionTemplate.execute(tx -> intakeRepository.requeueExpired(
+                OrderIntake.IntakeStatus.PROCESSING, OrderIntake.IntakeStatus.QUEUED, LocalDateTime.now()));
+        if (requeued != null && requeued > 0) {
+            log.warn("Requeued {} order intakes whose processing lease expired", requeued);
+        }
+        return requeued == null ? 0 : requeued;
+    }
+
+    private OrderIntakeDTO enqueue(String idempotencyKey, Long userId, String payload) {
+        OrderIntake intake = new OrderIntake();
+        intake.setIdempotencyKey(idempotencyKey);
+        intake.setOrderId(orderService.openPendingOrder(userId));
+        intake.setPayload(payload);
+        intake = intakeRepository.saveAndFlush(intake);
+        log.info("Queued order {} with idempotency key {}", intake.getOrderId(), idempotencyKey);
+        return toDTO(intake);
+    }
+
+    private OrderIntakeDTO replay(OrderIntake existing, String payload) {
+        if (!existing.getPayload().equals(payload)) {
+            throw new RuntimeException("Idempotency-Key đã được dùng cho một yêu cầu khác: "
+                    + existing.getIdempotencyKey());
+        }
+        return toDTO(existing);
+    }
+
+    private boolean claim(Long intakeId) {
+        Integer claimed = transactionTemplate.execute(tx -> intakeRepository.claim(intakeId,
+                OrderIntake.IntakeStatus.QUEUED, OrderIntake.IntakeStatus.PROCESSING,
+                LocalDateTime.now().plus(lease)));
+        return claimed != null && claimed == 1;
+    }
+
+    private void process(OrderIntake intake) {
+        String error = null;
+        try {
+            CreateOrderRequest request = objectMapper.readValue(intake.getPayload(), CreateOrderRequest.class);
+            orderService.fulfilPendingOrder(intake.getOrderId(), request);
+        } catch (Exception e) {
+            // fulfilPendingOrder đã tự từ chối đơn (kèm lệnh hoàn hàng nếu đã gửi lệnh giữ hàng);
+            // ở đây chỉ còn các lỗi trước bước đó, ví dụ payload không đọc được
+            log.warn("Order {} rejected: {}", intake.getOrderId(), e.getMessage());
+            error = e.getMessage();
+            orderService.rejectPendingOrder(intake.getOrderId());
+        }
+
+        String errorMessage = error;
+        transactionTemplate.executeWithoutResult(tx -> intakeRepository.findById(intake.getId())
+                .ifPresent(done -> {
+                    done.setStatus(OrderIntake.IntakeStatus.DONE);
+                    done.setErrorMessage(errorMessage);
+                    done.setProcessedAt(LocalDateTime.now());
+                    done.setLeaseExpiresAt(null);
+                }));
+    }
+
+    private String toJson(CreateOrderRequest request) {
+        try {
+            return objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Không thể đọc yêu cầu đặt hàng: " + e.getMessage());
+        }
+    }
+
+    private OrderIntakeDTO toDTO(OrderIntake intake) {
+        // Trạng thái đơn hàng là nguồn sự thật, intake chỉ cho biết yêu cầu đã được xử lý tới đâu
+        Order.OrderStatus orderStatus = orderRepository.findById(intake.getOrderId())
+                .map(Order::getStatus)
+                .orElse(null);
+        return new OrderIntakeDTO(
+                intake.getIdempotencyKey(),
+                intake.getOrderId(),
+                intake.getStatus(),
+                orderStatus,
+                intake.getErrorMessage(),
+                intake.getCreatedAt(),
+                intake.getProcessedAt()
+        );
+    }
+}
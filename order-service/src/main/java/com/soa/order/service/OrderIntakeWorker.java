@@ -0,0 +1,33 @@
+package com.soa.order.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(prefix = "order.intake", name = "enabled", havingValue = "true")
+public class OrderIntakeWorker {
+    private final OrderIntakeService orderIntakeService;
+
+    @Scheduled(fixedDelayString = "${order.intake.poll-interval-ms:500}")
+    public void drain() {
+        try {
+            orderIntakeService.drainQueue();
+        } catch (RuntimeException e) {
+            log.error("Order intake drain failed", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order.intake.lease-sweep-interval-ms:30000}")
+    public void requeueExpiredLeases() {
+        try {
+            orderIntakeService.requeueExpiredLeases();
+        } catch (RuntimeException e) {
+            log.error("Order intake lease sweep failed", e);
+        }
+    }
+}
@@ -1,18 +1,29 @@
 package com.soa.order.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.soa.order.client.ProductServiceClient;
-import com.soa.order.client.UserServiceClient;
 import com.soa.order.dto.*;
 import com.soa.order.model.Order;
 import com.soa.order.model.OrderItem;
 import com.soa.order.repository.OrderRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,13 +31,20 @@ import java.util.stream.Collectors;
 @Slf4j
 public class OrderService {
     private final OrderRepository orderRepository;
-    private final UserServiceClient userServiceClient;
+    private final OrderAssembler orderAssembler;
     private final ProductServiceClient productServiceClient;
+    private final StockOutbox stockOutbox;
+    private final OrderStatsService orderStatsService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
 
-    public List<OrderDTO> getAllOrders() {
-        return orderRepository.findAll().stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+    @Value("${order.export.chunk-size:500}")
+    private int exportChunkSize;
+
+    @Transactional(readOnly = true)
+    public Page<OrderDTO> getAllOrders(Pageable pageable) {
+        return orderRepository.findAll(pageable).map(this::toDTO);
     }
 
     public OrderDTO getOrderById(Long id) {
@@ -35,69 +53,174 @@ public class OrderService {
         return toDTO(order);
     }
 
-    public List<OrderDTO> getOrdersByUserId(Long userId) {
-        return orderRepository.findByUserId(userId).stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+    public OrderStatusEventDTO getOrderStatus(Long id) {
+        Order order = orderRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy đơn hàng với ID: " + id));
+        return toStatusEvent(order);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<OrderDTO> getOrdersByUserId(Long userId, Pageable pageable) {
+        return orderRepository.findByUserId(userId, pageable).map(this::toDTO);
+    }
+
+    public void exportOrders(Order.OrderStatus status, LocalDateTime from, LocalDateTime to,
+                             OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(OrderDTO.class);
+        Limit chunk = Limit.of(exportChunkSize);
+        long afterId = 0;
+
+        while (true) {
+            long lastId = afterId;
+            // Mỗi chunk dùng một transaction riêng nên persistence context được giải phóng sau mỗi lần đọc
+            List<OrderDTO> orders = transactionTemplate.execute(tx ->
+                    orderRepository.findExportChunk(lastId, status, from, to, chunk).stream()
+                            .map(this::toDTO)
+                            .collect(Collectors.toList()));
+            if (orders == null || orders.isEmpty()) {
+                break;
+            }
+            for (OrderDTO order : orders) {
+                out.write(writer.writeValueAsBytes(order));
+                out.write('\n');
+            }
+            out.flush();
+            afterId = orders.get(orders.size() - 1).getId();
+        }
     }
 
-    @Transactional
     public OrderDTO createOrder(CreateOrderRequest request) {
         log.info("Creating order for user: {}", request.getUserId());
 
-        // Kiểm tra user tồn tại
-        UserDTO user = userServiceClient.getUserById(request.getUserId());
-        log.info("User found: {}", user.getName());
+        // Kiểm tra user tồn tại và lấy thông tin sản phẩm song song
+        AssembledOrder assembled = orderAssembler.assemble(request);
+        log.info("User found: {}", assembled.getUser().getName());
 
         Order order = new Order();
         order.setUserId(request.getUserId());
         order.setStatus(Order.OrderStatus.PENDING);
+        addItems(order, request.getItems(), assembled.getProducts());
 
-        BigDecimal totalAmount = BigDecimal.ZERO;
+        // Transaction chỉ gồm các thao tác ghi cục bộ: đơn hàng và lệnh giữ hàng trong outbox
+        Order saved = transactionTemplate.execute(tx -> {
+            Order created = orderRepository.save(order);
+            stockOutbox.enqueueReserve(created.getId(), created.getItems());
+            orderStatsService.recordCreated(List.of(created));
+            publishStatus(created);
+            return created;
+        });
+        log.info("Order created successfully with ID: {}", saved.getId());
 
-        // Xử lý từng item trong đơn hàng
-        for (OrderItemRequest itemRequest : request.getItems()) {
-            // Lấy thông tin sản phẩm từ Product Service
-            ProductDTO product = productServiceClient.getProductById(itemRequest.getProductId());
-            log.info("Product found: {} - Stock: {}", product.getName(), product.getStock());
+        return toDTO(saved);
+    }
 
-            // Kiểm tra số lượng tồn kho
-            if (product.getStock() < itemRequest.getQuantity()) {
-                throw new RuntimeException(
-                    String.format("Sản phẩm '%s' không đủ số lượng. Hiện có: %d, yêu cầu: %d",
-                            product.getName(), product.getStock(), itemRequest.getQuantity()));
-            }
+    // Tạo đơn PENDING rỗng để trả về ID ngay khi nhận yêu cầu bất đồng bộ
+    @Transactional
+    public Long openPendingOrder(Long userId) {
+        Order order = new Order();
+        order.setUserId(userId);
+        order.setStatus(Order.OrderStatus.PENDING);
+        order.setTotalAmount(BigDecimal.ZERO);
+        Order saved = orderRepository.save(order);
+        orderStatsService.recordCreated(List.of(saved));
+        publishStatus(saved);
+        return saved.getId();
+    }
 
-            // Tạo order item
-            OrderItem orderItem = new OrderItem();
-            orderItem.setOrder(order);
-            orderItem.setProductId(product.getId());
-            orderItem.setQuantity(itemRequest.getQuantity());
-            orderItem.setPrice(product.getPrice());
-            orderItem.setSubtotal(product.getPrice().multiply(BigDecimal.valueOf(itemRequest.getQuantity())));
-            
-            order.getItems().add(orderItem);
-            totalAmount = totalAmount.add(orderItem.getSubtotal());
+    public void fulfilPendingOrder(Long orderId, CreateOrderRequest request) {
+        // Các lời gọi remote chạy ngoài transaction, chỉ bước xác nhận cuối cùng mới ghi DB
+        AssembledOrder assembled = orderAssembler.assemble(request);
+        Order priced = new Order();
+        addItems(priced, request.getItems(), assembled.getProducts());
+        try {
+            productServiceClient.reserveStock(StockOutbox.reserveCommandId(orderId), request.getItems());
+            transactionTemplate.executeWithoutResult(tx -> confirmPendingOrder(orderId, priced));
+        } catch (RuntimeException e) {
+            // Lệnh giữ hàng có thể đã được áp dụng (thành công hoặc timeout không rõ kết quả): từ chối đơn kèm
+            // lệnh hoàn hàng bù; Product Service bỏ qua lệnh hoàn nếu lệnh giữ hàng chưa từng được áp dụng
+            transactionTemplate.executeWithoutResult(tx -> reject(orderId, priced.getItems()));
+            throw e;
+        }
+    }
 
-            // Cập nhật stock trong Product Service
-            productServiceClient.updateStock(product.getId(), itemRequest.getQuantity());
-            log.info("Updated stock for product {}: -{}", product.getName(), itemRequest.getQuantity());
+    private void confirmPendingOrder(Long orderId, Order priced) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy đơn hàng với ID: " + orderId));
+        if (!order.getItems().isEmpty()) {
+            // Yêu cầu được xử lý lại sau khi lease hết hạn nhưng lần trước đã ghi xong: không làm gì thêm
+            log.info("Order {} was already fulfilled, skipping", orderId);
+            return;
+        }
+        Order.OrderStatus previousStatus = order.getStatus();
+        BigDecimal previousAmount = order.getTotalAmount();
+        for (OrderItem item : priced.getItems()) {
+            item.setOrder(order);
+            order.getItems().add(item);
+        }
+        order.setTotalAmount(priced.getTotalAmount());
+        if (order.getStatus() == Order.OrderStatus.PENDING) {
+            order.setStatus(Order.OrderStatus.CONFIRMED);
+            log.info("Order {} confirmed", orderId);
+        } else {
+            // Đơn đã bị hủy trong lúc chờ xử lý: trả lại lượng hàng vừa giữ
+            stockOutbox.enqueueRelease(orderId, order.getItems());
+            log.info("Order {} was {} before processing, releasing stock", orderId, order.getStatus());
         }
+        orderStatsService.recordUpdated(order, previousStatus, previousAmount);
+        publishStatus(order);
+    }
 
-        order.setTotalAmount(totalAmount);
-        order = orderRepository.save(order);
-        log.info("Order created successfully with ID: {}", order.getId());
+    @Transactional
+    public void rejectPendingOrder(Long orderId) {
+        reject(orderId, List.of());
+    }
 
-        return toDTO(order);
+    // Lệnh giữ hàng bị bỏ sau khi hết số lần gửi: không biết Product Service đã giữ hàng hay chưa,
+    // nên từ chối đơn và gửi lệnh hoàn (lệnh hoàn cho lần giữ chưa áp dụng sẽ bị Product Service bỏ qua)
+    @Transactional
+    public void abandonPendingOrder(Long orderId) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy đơn hàng với ID: " + orderId));
+        reject(orderId, List.copyOf(order.getItems()));
+    }
+
+    // reservedItems: hàng có thể đã được giữ cho đơn, cần hoàn lại nếu đơn chưa tự hoàn
+    private void reject(Long orderId, List<OrderItem> reservedItems) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy đơn hàng với ID: " + orderId));
+        if (order.getStatus() == Order.OrderStatus.PENDING) {
+            order.setStatus(Order.OrderStatus.REJECTED);
+            stockOutbox.enqueueRelease(orderId, reservedItems);
+            orderStatsService.recordUpdated(order, Order.OrderStatus.PENDING, order.getTotalAmount());
+            publishStatus(order);
+            log.info("Order {} rejected", orderId);
+        } else if (order.getStatus() == Order.OrderStatus.CANCELLED && order.getItems().isEmpty()) {
+            // Đơn bị hủy khi chưa có item nên lúc hủy không có gì để hoàn
+            stockOutbox.enqueueRelease(orderId, reservedItems);
+        }
     }
 
     @Transactional
     public OrderDTO updateOrderStatus(Long id, Order.OrderStatus status) {
         Order order = orderRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy đơn hàng với ID: " + id));
-        
+
+        // Hủy phải đi qua cancelOrder để hàng đã giữ được hoàn lại qua outbox
+        if (status == Order.OrderStatus.CANCELLED) {
+            cancelOrder(id);
+            return toDTO(order);
+        }
+        // Đơn đã hủy/bị từ chối không còn giữ hàng, mở lại sẽ bán vượt tồn kho
+        if (order.getStatus() == Order.OrderStatus.CANCELLED || order.getStatus() == Order.OrderStatus.REJECTED) {
+            throw new RuntimeException("Không thể đổi trạng thái đơn hàng đã " +
+                    (order.getStatus() == Order.OrderStatus.CANCELLED ? "hủy" : "bị từ chối"));
+        }
+
+        Order.OrderStatus previousStatus = order.getStatus();
         order.setStatus(status);
         order = orderRepository.save(order);
+        orderStatsService.recordUpdated(order, previousStatus, order.getTotalAmount());
+        publishStatus(order);
         log.info("Order {} status updated to {}", id, status);
         
         return toDTO(order);
@@ -112,14 +235,66 @@ public class OrderService {
             throw new RuntimeException("Không thể hủy đơn hàng đã được giao");
         }
         
-        // Hoàn lại số lượng sản phẩm vào kho (trong thực tế sẽ gọi API để tăng stock)
-        // Ở đây bỏ qua để đơn giản
-        
+        if (order.getStatus() == Order.OrderStatus.CANCELLED) {
+            return;
+        }
+
+        // Hoàn lại số lượng sản phẩm vào kho qua outbox; đơn bị từ chối thì chưa từng giữ hàng
+        if (order.getStatus() != Order.OrderStatus.REJECTED) {
+            stockOutbox.enqueueRelease(order.getId(), order.getItems());
+        }
+
+        Order.OrderStatus previousStatus = order.getStatus();
         order.setStatus(Order.OrderStatus.CANCELLED);
         orderRepository.save(order);
+        orderStatsService.recordUpdated(order, previousStatus, order.getTotalAmount());
+        publishStatus(order);
         log.info("Order {} cancelled", id);
     }
 
+    private void addItems(Order order, List<OrderItemRequest> items, Map<Long, ProductDTO> products) {
+        BigDecimal totalAmount = BigDecimal.ZERO;
+
+        // Xử lý từng item trong đơn hàng
+        for (OrderItemRequest itemRequest : items) {
+            ProductDTO product = products.get(itemRequest.getProductId());
+            if (product == null) {
+                throw new RuntimeException("Không tìm thấy sản phẩm với ID: " + itemRequest.getProductId());
+            }
+            log.info("Product found: {} - Stock: {}", product.getName(), product.getStock());
+
+            // Kiểm tra số lượng tồn kho
+            if (product.getStock() < itemRequest.getQuantity()) {
+                throw new RuntimeException(
+                    String.format("Sản phẩm '%s' không đủ số lượng. Hiện có: %d, yêu cầu: %d",
+                            product.getName(), product.getStock(), itemRequest.getQuantity()));
+            }
+
+            // Tạo order item
+            OrderItem orderItem = new OrderItem();
+            orderItem.setOrder(order);
+            orderItem.setProductId(product.getId());
+            orderItem.setQuantity(itemRequest.getQuantity());
+            orderItem.setPrice(product.getPrice());
+            orderItem.setSubtotal(product.getPrice().multiply(BigDecimal.valueOf(itemRequest.getQuantity())));
+            
+            order.getItems().add(orderItem);
+            totalAmount = totalAmount.add(orderItem.getSubtotal());
+        }
+
+        order.setTotalAmount(totalAmount);
+    }
+
+    // Được gửi tới các stream SSE sau khi transaction hiện tại commit
+    private void publishStatus(Order order) {
+        eventPublisher.publishEvent(toStatusEvent(order));
+    }
+
+    private OrderStatusEventDTO toStatusEvent(Order order) {
+        return new OrderStatusEventDTO(order.getId(), order.getUserId(), order.getStatus(),
+                order.getTotalAmount(), LocalDateTime.now());
+    }
+
     private OrderDTO toDTO(Order order) {
         List<OrderItemDTO> items = order.getItems().stream()
                 .map(item -> new OrderItemDTO(
@@ -0,0 +1,174 @@
+package com.soa.order.service;
+
+import com.soa.order.dto.OrderStatsDTO;
+import com.soa.order.dto.OrderStatusStatsDTO;
+import com.soa.order.dto.UserOrderStatsDTO;
+import com.soa.order.model.Order;
+import com.soa.order.model.OrderStatusSummary;
+import com.soa.order.model.UserOrderSummary;
+import com.soa.order.repository.OrderRepository;
+import com.soa.order.repository.OrderStatusSummaryRepository;
+import com.soa.order.repository.UserOrderSummaryRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thống kê đơn hàng được duy trì tăng dần: mỗi lần tạo đơn hoặc đổi trạng thái chỉ cộng/trừ phần chênh lệch
+ * vào bảng tổng hợp trong cùng transaction. Số liệu theo trạng thái được giữ thêm trong bộ nhớ để đọc
+ * không cần truy vấn; bản trong bộ nhớ được đồng bộ lại định kỳ để nhận thay đổi từ các instance khác.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderStatsService {
+    private static final Set<Order.OrderStatus> EXCLUDED_FROM_REVENUE =
+            EnumSet.of(Order.OrderStatus.CANCELLED, Order.OrderStatus.REJECTED);
+
+    private final OrderStatusSummaryRepository statusSummaryRepository;
+    private final UserOrderSummaryRepository userSummaryRepository;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Order.OrderStatus, Totals> byStatus = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        transactionTemplate.executeWithoutResult(tx -> initSummaries());
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${order.stats.refresh-interval-ms:10000}")
+    public void refresh() {
+        for (OrderStatusSummary summary : statusSummaryRepository.findAll()) {
+            byStatus.put(summary.getStatus(), new Totals(summary.getOrderCount(), summary.getRevenue()));
+        }
+    }
+
+    public OrderStatsDTO getStats() {
+        long totalOrders = 0;
+        BigDecimal totalRevenue = BigDecimal.ZERO;
+        Map<Order.OrderStatus, OrderStatusStatsDTO> statuses = new EnumMap<>(Order.OrderStatus.class);
+        for (Order.OrderStatus status : Order.OrderStatus.values()) {
+            Totals totals = byStatus.getOrDefault(status, Totals.ZERO);
+            statuses.put(status, new OrderStatusStatsDTO(totals.count(), totals.revenue()));
+            totalOrders += totals.count();
+            if (!EXCLUDED_FROM_REVENUE.contains(status)) {
+                totalRevenue = totalRevenue.add(totals.revenue());
+            }
+        }
+        return new OrderStatsDTO(totalOrders, totalRevenue, statuses);
+    }
+
+    public UserOrderStatsDTO getUserStats(Long userId) {
+        return userSummaryRepository.findById(userId)
+                .map(summary -> new UserOrderStatsDTO(userId, summary.getOrderCount(), summary.getRevenue()))
+                .orElseGet(() -> new UserOrderStatsDTO(userId, 0, BigDecimal.ZERO));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Collection<Order> orders) {
+        Deltas deltas = new Deltas();
+        for (Order order : orders) {
+            deltas.add(order.getUserId(), order.getStatus(), order.getTotalAmount(), 1, 1);
+        }
+        apply(deltas);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(Order order, Order.OrderStatus previousStatus, BigDecimal previousAmount) {
+        if (order.getStatus() == previousStatus && order.getTotalAmount().compareTo(previousAmount) == 0) {
+            return;
+        }
+        Deltas deltas = new Deltas();
+        deltas.add(order.getUserId(), previousStatus, previousAmount, -1, 0);
+        deltas.add(order.getUserId(), order.getStatus(), order.getTotalAmount(), 1, 0);
+        apply(deltas);
+    }
+
+    private void apply(Deltas deltas) {
+        deltas.statuses.forEach((status, totals) -> {
+            if (totals.count() != 0 || totals.revenue().signum() != 0) {
+                statusSummaryRepository.increment(status.name(), totals.count(), totals.revenue());
+            }
+        });
+        deltas.users.forEach((userId, totals) -> {
+            if (totals.count() != 0 || totals.revenue().signum() != 0) {
+                userSummaryRepository.increment(userId, totals.count(), totals.revenue());
+            }
+        });
+
+        // Chỉ cập nhật bản trong bộ nhớ khi transaction đã commit thành công
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                deltas.statuses.forEach((status, totals) -> byStatus.merge(status, totals, Totals::plus));
+            }
+        });
+    }
+
+    private void initSummaries() {
+        List<OrderStatusSummary> existing = statusSummaryRepository.findAll();
+        if (existing.isEmpty()) {
+            // Lần đầu chạy trên dữ liệu có sẵn: tính lại một lần từ bảng orders
+            Map<Order.OrderStatus, OrderStatusSummary> rebuilt = new EnumMap<>(Order.OrderStatus.class);
+            for (Object[] row : orderRepository.summarizeByStatus()) {
+                Order.OrderStatus status = (Order.OrderStatus) row[0];
+                rebuilt.put(status, new OrderStatusSummary(status, (Long) row[1], (BigDecimal) row[2]));
+            }
+            for (Order.OrderStatus status : Order.OrderStatus.values()) {
+                statusSummaryRepository.save(rebuilt.getOrDefault(status,
+                        new OrderStatusSummary(status, 0, BigDecimal.ZERO)));
+            }
+            userSummaryRepository.deleteAllInBatch();
+            int users = userSummaryRepository.rebuildFromOrders();
+            log.info("Order summaries rebuilt from orders table ({} users)", users);
+            return;
+        }
+        // Trạng thái mới thêm vào enum thì chưa có dòng tổng hợp
+        for (Order.OrderStatus status : Order.OrderStatus.values()) {
+            if (existing.stream().noneMatch(summary -> summary.getStatus() == status)) {
+                statusSummaryRepository.save(new OrderStatusSummary(status, 0, BigDecimal.ZERO));
+            }
+        }
+    }
+
+    private record Totals(long count, BigDecimal revenue) {
+        static final Totals ZERO = new Totals(0, BigDecimal.ZERO);
+
+        Totals plus(Totals other) {
+            return new Totals(count + other.count, revenue.add(other.revenue));
+        }
+    }
+
+    private static final class Deltas {
+        private final Map<Order.OrderStatus, Totals> statuses = new EnumMap<>(Order.OrderStatus.class);
+        private final Map<Long, Totals> users = new HashMap<>();
+
+        // sign: +1 khi đơn vào trạng thái, -1 khi rời trạng thái; newOrders: số đơn mới tính cho user
+        void add(Long userId, Order.OrderStatus status, BigDecimal amount, int sign, long newOrders) {
+            BigDecimal signedAmount = sign > 0 ? amount : amount.negate();
+            statuses.merge(status, new Totals(sign, signedAmount), Totals::plus);
+            BigDecimal userRevenue = EXCLUDED_FROM_REVENUE.contains(status) ? BigDecimal.ZERO : signedAmount;
+            users.merge(Objects.requireNonNull(userId), new Totals(newOrders, userRevenue), Totals::plus);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.soa.order.service;
+
+import com.soa.order.dto.OrderStatusEventDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Đẩy thay đổi trạng thái đơn hàng tới client qua Server-Sent Events thay cho việc poll GET /api/orders/{id}.
+ * Sự kiện được phát sau khi transaction commit; mỗi subscriber có hàng đợi giới hạn và được gửi trên
+ * pool riêng, subscriber đọc chậm để hàng đợi đầy sẽ bị ngắt kết nối (client tự kết nối lại).
+ */
+@Service
+@Slf4j
+public class OrderStreamService {
+    private static final String EVENT_NAME = "order-status";
+
+    private final ThreadPoolTaskExecutor executor;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long reconnectMillis;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Counter evictions;
+
+    public OrderStreamService(@Qualifier("orderStreamExecutor") ThreadPoolTaskExecutor executor,
+                              MeterRegistry meterRegistry,
+                              @Value("${order.stream.buffer-size:64}") int bufferSize,
+                              @Value("${order.stream.max-subscribers:1000}") int maxSubscribers,
+                              @Value("${order.stream.reconnect-ms:3000}") long reconnectMillis) {
+        this.executor = executor;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.reconnectMillis = reconnectMillis;
+        Gauge.builder("order.stream.subscribers", subscribers, Set::size).register(meterRegistry);
+        this.evictions = Counter.builder("order.stream.evicted").register(meterRegistry);
+    }
+
+    public SseEmitter subscribe(Long userId, Long orderId, OrderStatusEventDTO snapshot) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new RuntimeException("Quá nhiều kết nối theo dõi đơn hàng, vui lòng thử lại sau");
+        }
+        // Timeout theo spring.mvc.async.request-timeout; hết hạn thì EventSource tự kết nối lại
+        SseEmitter emitter = new SseEmitter();
+        Subscriber subscriber = new Subscriber(emitter, userId, orderId, bufferSize);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        subscribers.add(subscriber);
+
+        enqueue(subscriber, SseEmitter.event().reconnectTime(reconnectMillis).comment("connected"));
+        if (snapshot != null) {
+            enqueue(subscriber, toEvent(snapshot));
+        }
+        return emitter;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOrderStatusChanged(OrderStatusEventDTO event) {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.matches(event)) {
+                enqueue(subscriber, toEvent(event));
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order.stream.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        // Giữ kết nối qua proxy/gateway và phát hiện client đã ngắt
+        for (Subscriber subscriber : subscribers) {
+            enqueue(subscriber, SseEmitter.event().comment("heartbeat"));
+        }
+    }
+
+    private void enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (subscriber.closed) {
+            return;
+        }
+        if (!subscriber.queue.offer(event)) {
+            log.info("Evicting slow order stream subscriber (user {}, order {})",
+                    subscriber.userId, subscriber.orderId);
+            evictions.increment();
+            close(subscriber);
+            return;
+        }
+        scheduleDrain(subscriber);
+    }
+
+    private void scheduleDrain(Subscriber subscriber) {
+        if (!subscriber.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> drain(subscriber));
+        } catch (TaskRejectedException e) {
+            subscriber.draining.set(false);
+            remove(subscriber);
+            subscriber.emitter.complete();
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        do {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while (!subscriber.closed && (event = subscriber.queue.poll()) != null) {
+                    subscriber.emitter.send(event);
+                }
+            } catch (Exception e) {
+                // Client đã đóng kết nối
+                remove(subscriber);
+            }
+            if (subscriber.closed && subscriber.completed.compareAndSet(false, true)) {
+                subscriber.emitter.complete();
+            }
+            subscriber.draining.set(false);
+            // Sự kiện có thể vừa được thêm sau lần poll cuối nhưng trước khi trả cờ draining
+        } while (!subscriber.closed && !subscriber.queue.isEmpty()
+                && subscriber.draining.compareAndSet(false, true));
+    }
+
+    private void close(Subscriber subscriber) {
+        remove(subscriber);
+        subscriber.queue.clear();
+        // complete() được gọi trên luồng gửi để không chặn luồng phát sự kiện
+        scheduleDrain(subscriber);
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscriber.closed = true;
+        subscribers.remove(subscriber);
+    }
+
+    private SseEmitter.SseEventBuilder toEvent(OrderStatusEventDTO event) {
+        return SseEmitter.event()
+                .name(EVENT_NAME)
+                .id(event.getOrderId() + ":" + event.getStatus())
+                .data(event, MediaType.APPLICATION_JSON);
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final Long userId;
+        private final Long orderId;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter, Long userId, Long orderId, int bufferSize) {
+            this.emitter = emitter;
+            this.userId = userId;
+            this.orderId = orderId;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        private boolean matches(OrderStatusEventDTO event) {
+            if (orderId != null) {
+                return orderId.equals(event.getOrderId());
+            }
+            return userId.equals(event.getUserId());
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.soa.order.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.soa.order.client.ProductServiceClient;
+import com.soa.order.dto.OrderItemRequest;
+import com.soa.order.dto.StockCommand;
+import com.soa.order.dto.StockCommandResult;
+import com.soa.order.model.OutboxEvent;
+import com.soa.order.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Gửi các lệnh tồn kho trong outbox sang Product Service theo batch, thử lại với backoff khi lỗi.
+ * Việc giao là at-least-once; Product Service loại bỏ lệnh trùng theo command ID. Chỉ lệnh bị từ chối vì lý do
+ * nghiệp vụ mới là kết quả cuối cùng; lỗi tạm thời của Product Service được gửi lại như lỗi kết nối.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+    private static final TypeReference<List<OrderItemRequest>> ITEMS_TYPE = new TypeReference<>() {
+    };
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ProductServiceClient productServiceClient;
+    private final OrderService orderService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration deliveredRetention;
+    private final Duration failedRetention;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       ProductServiceClient productServiceClient,
+                       OrderService orderService,
+                       TransactionTemplate transactionTemplate,
+                       ObjectMapper objectMapper,
+                       @Value("${order.outbox.batch-size:100}") int batchSize,
+                       @Value("${order.outbox.max-attempts:10}") int maxAttempts,
+                       @Value("${order.outbox.initial-backoff:1s}") Duration initialBackoff,
+                       @Value("${order.outbox.max-backoff:5m}") Duration maxBackoff,
+                       @Value("${order.outbox.delivered-retention:7d}") Duration deliveredRetention,
+                       @Value("${order.outbox.failed-retention:30d}") Duration failedRetention) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.productServiceClient = productServiceClient;
+        this.orderService = orderService;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.deliveredRetention = deliveredRetention;
+        this.failedRetention = failedRetention;
+    }
+
+    @Scheduled(fixedDelayString = "${order.outbox.poll-interval-ms:500}")
+    public void relay() {
+        try {
+            int delivered;
+            do {
+                delivered = relayBatch();
+            } while (delivered == batchSize);
+        } catch (RuntimeException e) {
+            log.error("Outbox relay failed", e);
+        }
+    }
+
+    private int relayBatch() {
+        List<OutboxEvent> events = outboxEventRepository.findDeliverable(
+                OutboxEvent.EventStatus.PENDING, LocalDateTime.now(), Limit.of(batchSize));
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, StockCommandResult> results;
+        try {
+            List<StockCommand> commands = events.stream()
+                    .map(this::toCommand)
+                    .collect(Collectors.toList());
+            results = productServiceClient.applyStockCommands(commands).stream()
+                    .collect(Collectors.toMap(StockCommandResult::getCommandId, Function.identity(), (a, b) -> a));
+        } catch (RuntimeException e) {
+            log.warn("Could not deliver {} outbox events: {}", events.size(), e.getMessage());
+            transactionTemplate.executeWithoutResult(tx -> {
+                events.forEach(event -> scheduleRetry(event, e.getMessage()));
+                outboxEventRepository.saveAll(events);
+            });
+            return 0;
+        }
+
+        transactionTemplate.executeWithoutResult(tx -> {
+            events.forEach(event -> complete(event, results.get(event.getCommandId())));
+            outboxEventRepository.saveAll(events);
+        });
+        return events.size();
+    }
+
+    private void complete(OutboxEvent event, StockCommandResult result) {
+        if (result == null) {
+            scheduleRetry(event, "Product Service không trả kết quả cho lệnh " + event.getCommandId());
+            return;
+        }
+        if (result.getStatus() == StockCommandResult.Status.ERROR) {
+            // Lỗi tạm thời phía Product Service: lệnh chưa được áp dụng, gửi lại sau
+            scheduleRetry(event, result.getMessage());
+            return;
+        }
+        event.setStatus(OutboxEvent.EventStatus.DELIVERED);
+        event.setDeliveredAt(LocalDateTime.now());
+        event.setAttempts(event.getAttempts() + 1);
+        if (result.getStatus() == StockCommandResult.Status.REJECTED) {
+            event.setLastError(result.getMessage());
+            if (event.getType() == OutboxEvent.EventType.STOCK_RESERVE) {
+                // Bị từ chối vì lý do nghiệp vụ (ví dụ không đủ hàng): đơn hàng bị từ chối
+                orderService.rejectPendingOrder(event.getAggregateId());
+            }
+        }
+    }
+
+    // Xóa event đã gửi xong hoặc đã bỏ cuộc quá thời hạn lưu, theo từng lô để mỗi transaction nhỏ
+    @Scheduled(fixedDelayString = "${order.outbox.purge-interval-ms:3600000}")
+    public void purge() {
+        try {
+            int purged = purge(OutboxEvent.EventStatus.DELIVERED, deliveredRetention)
+                    + purge(OutboxEvent.EventStatus.FAILED, failedRetention);
+            if (purged > 0) {
+                log.info("Purged {} outbox events past retention", purged);
+            }
+        } catch (RuntimeException e) {
+            log.error("Outbox purge failed", e);
+        }
+    }
+
+    private int purge(OutboxEvent.EventStatus status, Duration retention) {
+        LocalDateTime before = LocalDateTime.now().minus(retention);
+        int purged = 0;
+        List<Long> ids;
+        do {
+            ids = outboxEventRepository.findIdsCreatedBefore(status, before, Limit.of(batchSize));
+            if (!ids.isEmpty()) {
+                List<Long> batch = ids;
+                transactionTemplate.executeWithoutResult(tx -> outboxEventRepository.deleteAllByIdInBatch(batch));
+                purged += ids.size();
+            }
+        } while (ids.size() == batchSize);
+        return purged;
+    }
+
+    private void scheduleRetry(OutboxEvent event, String error) {
+        int attempts = event.getAttempts() + 1;
+        event.setAttempts(attempts);
+        event.setLastError(error);
+        if (attempts >= maxAttempts) {
+            event.setStatus(OutboxEvent.EventStatus.FAILED);
+            log.error("Outbox event {} failed after {} attempts: {}", event.getCommandId(), attempts, error);
+            if (event.getType() == OutboxEvent.EventType.STOCK_RESERVE) {
+                // Không để đơn treo ở PENDING mãi; cùng transaction với việc đánh dấu FAILED
+                orderService.abandonPendingOrder(event.getAggregateId());
+            }
+            return;
+        }
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        if (backoff.compareTo(maxBackoff) > 0) {
+            backoff = maxBackoff;
+        }
+        event.setNextAttemptAt(LocalDateTime.now().plus(backoff));
+    }
+
+    private StockCommand toCommand(OutboxEvent event) {
+        StockCommand.CommandType type = event.getType() == OutboxEvent.EventType.STOCK_RESERVE
+                ? StockCommand.CommandType.RESERVE
+                : StockCommand.CommandType.RELEASE;
+        try {
+            return new StockCommand(event.getCommandId(), type, event.getReference(),
+                    objectMapper.readValue(event.getPayload(), ITEMS_TYPE));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Không thể đọc lệnh tồn kho " + event.getCommandId() + ": " + e.getMessage());
+        }
+    }
+}
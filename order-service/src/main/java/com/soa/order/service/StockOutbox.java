@@ -0,0 +1,70 @@
+package com.soa.order.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.soa.order.dto.OrderItemRequest;
+import com.soa.order.model.OrderItem;
+import com.soa.order.model.OutboxEvent;
+import com.soa.order.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Ghi lệnh giữ/hoàn hàng vào bảng outbox trong cùng transaction với thay đổi của đơn hàng.
+ */
+@Component
+@RequiredArgsConstructor
+public class StockOutbox {
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    // Command ID cố định theo đơn hàng nên Product Service có thể loại bỏ lệnh gửi lặp lại
+    public static String reserveCommandId(Long orderId) {
+        return "order-" + orderId + "-reserve";
+    }
+
+    public static String releaseCommandId(Long orderId) {
+        return "order-" + orderId + "-release";
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueReserve(Long orderId, List<OrderItem> items) {
+        enqueue(orderId, OutboxEvent.EventType.STOCK_RESERVE, reserveCommandId(orderId), null, items);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueRelease(Long orderId, List<OrderItem> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        enqueue(orderId, OutboxEvent.EventType.STOCK_RELEASE, releaseCommandId(orderId),
+                reserveCommandId(orderId), items);
+    }
+
+    private void enqueue(Long orderId, OutboxEvent.EventType type, String commandId, String reference,
+                         List<OrderItem> items) {
+        OutboxEvent event = new OutboxEvent();
+        event.setAggregateId(orderId);
+        event.setType(type);
+        event.setCommandId(commandId);
+        event.setReference(reference);
+        event.setPayload(toJson(items));
+        outboxEventRepository.save(event);
+    }
+
+    private String toJson(List<OrderItem> items) {
+        List<OrderItemRequest> payload = items.stream()
+                .map(item -> new OrderItemRequest(item.getProductId(), item.getQuantity()))
+                .collect(Collectors.toList());
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Không thể ghi lệnh tồn kho: " + e.getMessage());
+        }
+    }
+}
@@ -1,13 +1,33 @@
 package com.soa.product.controller;
 
+import com.soa.product.dto.CategoryFacetDTO;
+import com.soa.product.dto.ProductChangesDTO;
 import com.soa.product.dto.ProductDTO;
+import com.soa.product.dto.StockCommand;
+import com.soa.product.dto.StockAvailabilityDTO;
+import com.soa.product.dto.StockCommandResult;
+import com.soa.product.dto.StockHoldDTO;
+import com.soa.product.dto.StockHoldRequest;
+import com.soa.product.dto.StockReservationRequest;
+import com.soa.product.service.HotStockService;
+import com.soa.product.service.ProductBulkService;
 import com.soa.product.service.ProductService;
+import com.soa.product.service.StockCommandService;
+import com.soa.product.service.StockHoldService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -15,12 +35,64 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ProductController {
     private final ProductService productService;
+    private final StockCommandService stockCommandService;
+    private final HotStockService hotStockService;
+    private final ProductBulkService productBulkService;
+    private final StockHoldService stockHoldService;
 
     @GetMapping
     public ResponseEntity<List<ProductDTO>> getAllProducts() {
         return ResponseEntity.ok(productService.getAllProducts());
     }
 
+    @GetMapping(params = "ids")
+    public ResponseEntity<List<ProductDTO>> getProductsByIds(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(productService.getProductsByIds(ids));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<ProductDTO>> searchProducts(
+            @RequestParam String q,
+            @RequestParam(required = false) String category,
+            @PageableDefault(size = 20) Pageable pageable) {
+        return pageResponse(productService.searchProducts(q, category, pageable));
+    }
+
+    @GetMapping("/changes")
+    public ResponseEntity<ProductChangesDTO> getChanges(@RequestParam(defaultValue = "0") long since,
+                                                        @RequestParam(defaultValue = "1000") int limit) {
+        return ResponseEntity.ok(productService.getChanges(since, Math.min(Math.max(limit, 1), 10000)));
+    }
+
+    @GetMapping(value = "/export", produces = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(defaultValue = "ndjson") String format) {
+        ProductBulkService.Format exportFormat;
+        try {
+            exportFormat = ProductBulkService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        StreamingResponseBody body = out -> productBulkService.exportProducts(exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(
+                        exportFormat == ProductBulkService.Format.CSV ? "text/csv" : "application/x-ndjson"))
+                .body(body);
+    }
+
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<?> importProducts(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                            InputStream body) {
+        boolean csv = MediaType.parseMediaType(contentType).isCompatibleWith(new MediaType("text", "csv"));
+        ProductBulkService.Format format = csv
+                ? ProductBulkService.Format.CSV
+                : ProductBulkService.Format.NDJSON;
+        try {
+            return ResponseEntity.ok(productBulkService.importProducts(body, format));
+        } catch (IOException | RuntimeException e) {
+            return ResponseEntity.badRequest().body("Dữ liệu nhập không hợp lệ: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ProductDTO> getProductById(@PathVariable Long id) {
         try {
@@ -31,9 +103,26 @@ public class ProductController {
         }
     }
 
+    @GetMapping("/{id}/availability")
+    public ResponseEntity<StockAvailabilityDTO> getAvailability(@PathVariable Long id) {
+        try {
+            ProductDTO product = productService.getProductById(id);
+            return ResponseEntity.ok(new StockAvailabilityDTO(id, product.getStock(), stockHoldService.held(id)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping("/categories")
+    public ResponseEntity<List<CategoryFacetDTO>> getCategories() {
+        return ResponseEntity.ok(productService.getCategoryFacets());
+    }
+
     @GetMapping("/category/{category}")
-    public ResponseEntity<List<ProductDTO>> getProductsByCategory(@PathVariable String category) {
-        return ResponseEntity.ok(productService.getProductsByCategory(category));
+    public ResponseEntity<List<ProductDTO>> getProductsByCategory(
+            @PathVariable String category,
+            @PageableDefault(size = 20) Pageable pageable) {
+        return pageResponse(productService.getProductsByCategory(category, pageable));
     }
 
     @PostMapping
@@ -76,5 +165,84 @@ public class ProductController {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
-}
 
+    @PutMapping("/{id}/hot")
+    public ResponseEntity<?> enableHotStock(@PathVariable Long id) {
+        try {
+            hotStockService.enable(id);
+            return ResponseEntity.ok().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{id}/hot")
+    public ResponseEntity<?> disableHotStock(@PathVariable Long id) {
+        try {
+            hotStockService.disable(id);
+            return ResponseEntity.noContent().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/stock/reservations")
+    public ResponseEntity<?> reserveStock(@Valid @RequestBody StockReservationRequest request) {
+        try {
+            stockCommandService.reserve(request);
+            return ResponseEntity.ok().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/stock/commands")
+    public ResponseEntity<List<StockCommandResult>> applyStockCommands(
+            @Valid @RequestBody List<StockCommand> commands) {
+        return ResponseEntity.ok(stockCommandService.apply(commands));
+    }
+
+    @PostMapping("/stock/holds")
+    public ResponseEntity<?> createStockHold(@Valid @RequestBody StockHoldRequest request) {
+        try {
+            StockHoldDTO hold = stockHoldService.hold(request);
+            return ResponseEntity.status(HttpStatus.CREATED).body(hold);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/stock/holds/{holdId}")
+    public ResponseEntity<StockHoldDTO> getStockHold(@PathVariable Long holdId) {
+        try {
+            return ResponseEntity.ok(stockHoldService.getHold(holdId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PostMapping("/stock/holds/{holdId}/commit")
+    public ResponseEntity<?> commitStockHold(@PathVariable Long holdId) {
+        try {
+            return ResponseEntity.ok(stockHoldService.commit(holdId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/stock/holds/{holdId}")
+    public ResponseEntity<?> releaseStockHold(@PathVariable Long holdId) {
+        try {
+            return ResponseEntity.ok(stockHoldService.release(holdId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    private ResponseEntity<List<ProductDTO>> pageResponse(Page<ProductDTO> page) {
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(page.getTotalElements()))
+                .header("X-Total-Pages", String.valueOf(page.getTotalPages()))
+                .body(page.getContent());
+    }
+}
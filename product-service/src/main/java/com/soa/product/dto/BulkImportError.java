@@ -0,0 +1,13 @@
+package com.soa.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportError {
+    private long index;
+    private String message;
+}
@@ -0,0 +1,21 @@
+package com.soa.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportResult {
+    private long received;
+    private long imported;
+    private long created;
+    private long updated;
+    private long failed;
+    private long elapsedMs;
+    private double rowsPerSecond;
+    private List<BulkImportError> errors;
+}
@@ -0,0 +1,18 @@
+package com.soa.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryFacetDTO {
+    private String category;
+    private int totalProducts;
+    private int inStockProducts;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+}
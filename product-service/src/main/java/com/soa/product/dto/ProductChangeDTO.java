@@ -0,0 +1,19 @@
+package com.soa.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// Trạng thái hiện tại của một sản phẩm đã thay đổi, chỉ gồm các trường Order Service cần để tính giá
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductChangeDTO {
+    private Long id;
+    private boolean deleted;
+    private String name;
+    private BigDecimal price;
+    private Integer stock;
+}
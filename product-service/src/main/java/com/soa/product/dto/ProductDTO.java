@@ -11,6 +11,7 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 public class ProductDTO {
     private Long id;
+    private String sku;
     private String name;
     private String description;
     private BigDecimal price;
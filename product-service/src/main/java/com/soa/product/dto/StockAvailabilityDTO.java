@@ -0,0 +1,16 @@
+package com.soa.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAvailabilityDTO {
+    private Long productId;
+    // Số lượng còn có thể hứa bán (đã trừ các lượt giữ hàng đang hiệu lực)
+    private Integer available;
+    // Số lượng đang bị giữ bởi các lượt giữ hàng chưa xác nhận
+    private Long held;
+}
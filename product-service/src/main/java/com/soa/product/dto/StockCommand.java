@@ -0,0 +1,30 @@
+package com.soa.product.dto;
+
+import com.soa.product.model.ProcessedStockCommand;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockCommand {
+    @NotBlank(message = "Command ID không được để trống")
+    private String commandId;
+
+    @NotNull(message = "Loại lệnh không được để trống")
+    private ProcessedStockCommand.CommandType type;
+
+    // Với lệnh RELEASE: ID của lệnh RESERVE cần hoàn lại
+    private String reference;
+
+    @Valid
+    @NotEmpty(message = "Danh sách sản phẩm không được để trống")
+    private List<StockItemRequest> items;
+}
@@ -0,0 +1,19 @@
+package com.soa.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockCommandResult {
+    private String commandId;
+    private Status status;
+    private String message;
+
+    // REJECTED: bị từ chối vì lý do nghiệp vụ, không gửi lại; ERROR: lỗi tạm thời, có thể gửi lại
+    public enum Status {
+        APPLIED, DUPLICATE, REJECTED, ERROR
+    }
+}
@@ -0,0 +1,20 @@
+package com.soa.product.dto;
+
+import com.soa.product.model.StockHold;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockHoldDTO {
+    private Long id;
+    private String reference;
+    private StockHold.Status status;
+    private LocalDateTime expiresAt;
+    private List<StockItemRequest> items;
+}
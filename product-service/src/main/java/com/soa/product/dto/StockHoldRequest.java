@@ -0,0 +1,26 @@
+package com.soa.product.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockHoldRequest {
+    // Tùy chọn: nếu có, lần gửi lặp lại với cùng reference trả về lượt giữ hàng đã tạo
+    private String reference;
+
+    // Tùy chọn: thời gian giữ hàng, mặc định theo product.holds.default-ttl
+    @Min(value = 1, message = "Thời gian giữ hàng phải lớn hơn 0")
+    private Long ttlSeconds;
+
+    @Valid
+    @NotEmpty(message = "Danh sách sản phẩm không được để trống")
+    private List<StockItemRequest> items;
+}
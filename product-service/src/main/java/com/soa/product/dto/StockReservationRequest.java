@@ -0,0 +1,21 @@
+package com.soa.product.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservationRequest {
+    // Tùy chọn: nếu có, lần gửi lặp lại với cùng reference sẽ không trừ kho thêm lần nữa
+    private String reference;
+
+    @Valid
+    @NotEmpty(message = "Danh sách sản phẩm không được để trống")
+    private List<StockItemRequest> items;
+}
@@ -0,0 +1,30 @@
+package com.soa.product.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Lượng hàng bán (dương) hoặc hoàn lại (âm) qua bộ đếm trong bộ nhớ, chưa được cộng dồn vào bảng products
+@Entity
+@Table(name = "hot_stock_journal")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotStockJournalEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "hot_stock_journal_seq")
+    @SequenceGenerator(name = "hot_stock_journal_seq", sequenceName = "hot_stock_journal_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
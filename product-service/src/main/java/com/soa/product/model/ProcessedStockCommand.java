@@ -0,0 +1,34 @@
+package com.soa.product.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Lệnh thay đổi tồn kho đã áp dụng, dùng để bỏ qua lệnh gửi lặp lại từ Order Service
+@Entity
+@Table(name = "processed_stock_commands")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcessedStockCommand {
+    @Id
+    @Column(length = 100)
+    private String commandId;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private CommandType type;
+
+    @Column(length = 100)
+    private String reference;
+
+    @Column(nullable = false)
+    private LocalDateTime processedAt;
+
+    public enum CommandType {
+        RESERVE, RELEASE
+    }
+}
@@ -10,15 +10,24 @@ import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        // Phục vụ duyệt sản phẩm theo danh mục, sắp theo ID
+        @Index(name = "idx_products_category", columnList = "category, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Product {
+    // SEQUENCE với allocationSize > 1 để Hibernate có thể gộp các câu INSERT thành JDBC batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "products_seq", allocationSize = 50)
     private Long id;
 
+    // Mã sản phẩm bên ERP, dùng làm khóa tự nhiên khi đồng bộ danh mục
+    @Column(unique = true, length = 64)
+    private String sku;
+
     @NotBlank(message = "Tên sản phẩm không được để trống")
     @Column(nullable = false)
     private String name;
@@ -35,6 +44,14 @@ public class Product {
 
     @Column(nullable = false)
     private String category;
+
+    // Chế độ bán nhanh (flash sale): tồn kho được trừ trên bộ đếm trong bộ nhớ thay vì trên dòng này
+    @Column(nullable = false)
+    private boolean hot;
+
+    // Phần tồn kho đã giao cho bộ đếm trong bộ nhớ; các câu UPDATE trực tiếp chỉ được trừ phần còn lại
+    @Column(nullable = false)
+    private int hotAllocated;
 }
 
 
@@ -0,0 +1,48 @@
+package com.soa.product.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Lượt giữ hàng có thời hạn: tồn kho đã bị trừ, sẽ được xác nhận, hoàn lại hoặc tự hết hạn
+@Entity
+@Table(name = "stock_holds", indexes = {
+        @Index(name = "idx_stock_holds_status_expires", columnList = "status, expiresAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockHold {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_hold_seq")
+    @SequenceGenerator(name = "stock_hold_seq", sequenceName = "stock_holds_seq", allocationSize = 50)
+    private Long id;
+
+    // Tùy chọn: gửi lặp lại với cùng reference trả về lượt giữ hàng đã tạo
+    @Column(unique = true)
+    private String reference;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @OneToMany(mappedBy = "hold", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100)
+    private List<StockHoldItem> items = new ArrayList<>();
+
+    public enum Status {
+        ACTIVE, COMMITTED, RELEASED, EXPIRED
+    }
+}
@@ -0,0 +1,13 @@
+package com.soa.product.repository;
+
+import com.soa.product.model.HotStockJournalEntry;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface HotStockJournalRepository extends JpaRepository<HotStockJournalEntry, Long> {
+    List<HotStockJournalEntry> findByOrderByIdAsc(Limit limit);
+}
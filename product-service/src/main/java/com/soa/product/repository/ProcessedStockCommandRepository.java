@@ -0,0 +1,9 @@
+package com.soa.product.repository;
+
+import com.soa.product.model.ProcessedStockCommand;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ProcessedStockCommandRepository extends JpaRepository<ProcessedStockCommand, String> {
+}
@@ -1,16 +1,61 @@
 package com.soa.product.repository;
 
 import com.soa.product.model.Product;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
     List<Product> findByCategory(String category);
     List<Product> findByNameContainingIgnoreCase(String name);
-}
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    List<Product> findBySkuIn(Collection<String> skus);
+
+    @Query("SELECT p.stock FROM Product p WHERE p.id = :id")
+    Optional<Integer> findStockById(@Param("id") Long id);
+
+    @Query("SELECT p.id, p.stock FROM Product p WHERE p.id IN :ids")
+    List<Object[]> findStocksByIds(@Param("ids") Collection<Long> ids);
+
+    // Tồn kho bán được qua UPDATE trực tiếp (không tính phần đã giao cho bộ đếm bán nhanh)
+    @Query("SELECT p.id, p.stock - p.hotAllocated FROM Product p WHERE p.id IN :ids")
+    List<Object[]> findAvailableStocksByIds(@Param("ids") Collection<Long> ids);
 
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = p.stock - :quantity"
+            + " WHERE p.id = :id AND p.stock - p.hotAllocated >= :quantity")
+    int decrementStock(@Param("id") Long id, @Param("quantity") Integer quantity);
 
+    List<Product> findByHotTrue();
 
+    // Giao toàn bộ tồn kho hiện có cho bộ đếm trong bộ nhớ
+    @Modifying
+    @Query("UPDATE Product p SET p.hot = true, p.hotAllocated = p.stock WHERE p.id = :id AND p.hot = false")
+    int allocateHotStock(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.hot = false, p.hotAllocated = p.hotAllocated - :returned WHERE p.id = :id")
+    int disableHotStock(@Param("id") Long id, @Param("returned") int returned);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.hotAllocated = p.hotAllocated - :quantity WHERE p.id = :id")
+    int releaseHotAllocation(@Param("id") Long id, @Param("quantity") int quantity);
+
+    // Lượng bán qua bộ đếm đã ghi journal: trừ vào cả tồn kho lẫn phần đã giao
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = p.stock - :sold, p.hotAllocated = p.hotAllocated - :sold WHERE p.id = :id")
+    int applyHotSales(@Param("id") Long id, @Param("sold") int sold);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.hotAllocated = 0 WHERE p.hot = false AND p.hotAllocated <> 0")
+    int clearStaleHotAllocations();
+}
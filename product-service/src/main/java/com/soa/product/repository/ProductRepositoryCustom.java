@@ -0,0 +1,13 @@
+package com.soa.product.repository;
+
+import java.util.Map;
+
+public interface ProductRepositoryCustom {
+    /**
+     * Trừ tồn kho cho nhiều sản phẩm trong một JDBC batch.
+     * Mỗi dòng chỉ được cập nhật khi còn đủ hàng, kết quả trả về theo thứ tự của map.
+     */
+    int[] batchDecrementStock(Map<Long, Integer> quantities);
+
+    int[] batchIncrementStock(Map<Long, Integer> quantities);
+}
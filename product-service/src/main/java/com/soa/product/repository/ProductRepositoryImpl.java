@@ -0,0 +1,34 @@
+package com.soa.product.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@RequiredArgsConstructor
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+    private static final String DECREMENT_STOCK_SQL =
+            "UPDATE products SET stock = stock - ? WHERE id = ? AND stock - hot_allocated >= ?";
+    private static final String INCREMENT_STOCK_SQL =
+            "UPDATE products SET stock = stock + ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int[] batchDecrementStock(Map<Long, Integer> quantities) {
+        List<Object[]> args = quantities.entrySet().stream()
+                .map(e -> new Object[]{e.getValue(), e.getKey(), e.getValue()})
+                .collect(Collectors.toList());
+        return jdbcTemplate.batchUpdate(DECREMENT_STOCK_SQL, args);
+    }
+
+    @Override
+    public int[] batchIncrementStock(Map<Long, Integer> quantities) {
+        List<Object[]> args = quantities.entrySet().stream()
+                .map(e -> new Object[]{e.getValue(), e.getKey()})
+                .collect(Collectors.toList());
+        return jdbcTemplate.batchUpdate(INCREMENT_STOCK_SQL, args);
+    }
+}
@@ -0,0 +1,35 @@
+package com.soa.product.repository;
+
+import com.soa.product.model.StockHold;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StockHoldRepository extends JpaRepository<StockHold, Long> {
+    Optional<StockHold> findByReference(String reference);
+
+    // Khóa dòng để xác nhận/hoàn lại/hết hạn không chạy chồng lên nhau trên cùng một lượt giữ hàng
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM StockHold h WHERE h.id = :id")
+    Optional<StockHold> findForUpdate(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM StockHold h WHERE h.id IN :ids AND h.status = :status")
+    List<StockHold> findForUpdate(@Param("ids") Collection<Long> ids, @Param("status") StockHold.Status status);
+
+    // Chỉ dùng khi khởi động để nạp lại các lượt giữ hàng còn hiệu lực vào timing wheel
+    @Query("SELECT h.id, h.expiresAt FROM StockHold h WHERE h.status = :status AND h.id > :afterId ORDER BY h.id")
+    List<Object[]> findExpiries(@Param("status") StockHold.Status status, @Param("afterId") Long afterId, Limit limit);
+
+    @Query("SELECT i.productId, SUM(i.quantity) FROM StockHoldItem i WHERE i.hold.status = :status GROUP BY i.productId")
+    List<Object[]> sumQuantitiesByProduct(@Param("status") StockHold.Status status);
+}
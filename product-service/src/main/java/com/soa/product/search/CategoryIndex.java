@@ -0,0 +1,213 @@
+package com.soa.product.search;
+
+import com.soa.product.dto.CategoryFacetDTO;
+import com.soa.product.dto.ProductDTO;
+import com.soa.product.model.Product;
+import com.soa.product.repository.ProductRepository;
+import com.soa.product.service.ProductChangedEvent;
+import com.soa.product.service.ProductStockChangedEvent;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Chỉ mục danh mục trong bộ nhớ: danh sách ID sản phẩm (đã sắp xếp) của từng danh mục cùng số liệu facet
+ * (tổng số, số còn hàng, khoảng giá). Được dựng lúc khởi động và cập nhật sau mỗi lần ghi hoặc đổi tồn kho.
+ */
+@Component
+@Slf4j
+public class CategoryIndex {
+    private final ProductRepository productRepository;
+    private final int buildBatchSize;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Entry> products = new HashMap<>();
+    private final TreeMap<String, Category> categories = new TreeMap<>();
+
+    public CategoryIndex(ProductRepository productRepository,
+                         @Value("${product.search.build-batch-size:1000}") int buildBatchSize) {
+        this.productRepository = productRepository;
+        this.buildBatchSize = buildBatchSize;
+    }
+
+    @PostConstruct
+    void build() {
+        Limit batch = Limit.of(buildBatchSize);
+        long afterId = 0;
+        while (true) {
+            List<Product> batchProducts = productRepository.findByIdGreaterThanOrderByIdAsc(afterId, batch);
+            if (batchProducts.isEmpty()) {
+                break;
+            }
+            lock.writeLock().lock();
+            try {
+                for (Product product : batchProducts) {
+                    put(product.getId(), product.getCategory(), product.getPrice(), product.getStock());
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            afterId = batchProducts.get(batchProducts.size() - 1).getId();
+        }
+        log.info("Category index built: {} products in {} categories", products.size(), categories.size());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            remove(event.getProductId());
+            ProductDTO product = event.getProduct();
+            if (product != null) {
+                put(product.getId(), product.getCategory(), product.getPrice(), product.getStock());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onStockChanged(ProductStockChangedEvent event) {
+        // Tồn kho bị đổi bằng UPDATE trực tiếp nên đọc lại giá trị đã commit
+        List<Object[]> stocks = productRepository.findStocksByIds(event.getProductIds());
+        lock.writeLock().lock();
+        try {
+            for (Object[] row : stocks) {
+                Entry entry = products.get((Long) row[0]);
+                if (entry != null) {
+                    int stock = (Integer) row[1];
+                    categories.get(entry.category).inStock += inStock(stock) - inStock(entry.stock);
+                    entry.stock = stock;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<CategoryFacetDTO> facets() {
+        lock.readLock().lock();
+        try {
+            List<CategoryFacetDTO> facets = new ArrayList<>(categories.size());
+            categories.forEach((name, category) -> facets.add(new CategoryFacetDTO(name, category.ids.size,
+                    category.inStock, category.prices.firstKey(), category.prices.lastKey())));
+            return facets;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ID sản phẩm của một trang trong danh mục, sắp theo ID
+    public Page<Long> page(String category, Pageable pageable) {
+        lock.readLock().lock();
+        try {
+            Category entry = categories.get(category);
+            if (entry == null) {
+                return Page.empty(pageable);
+            }
+            int from = (int) Math.min(pageable.getOffset(), entry.ids.size);
+            int to = Math.min(from + pageable.getPageSize(), entry.ids.size);
+            List<Long> ids = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                ids.add(entry.ids.values[i]);
+            }
+            return new PageImpl<>(ids, pageable, entry.ids.size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void put(Long id, String categoryName, BigDecimal price, Integer stock) {
+        int quantity = stock == null ? 0 : stock;
+        // Cùng scale với cột price để facet trả về giống dữ liệu đọc từ DB
+        price = price.setScale(2, RoundingMode.HALF_UP);
+        products.put(id, new Entry(categoryName, price, quantity));
+        Category category = categories.computeIfAbsent(categoryName, name -> new Category());
+        category.ids.add(id);
+        category.inStock += inStock(quantity);
+        category.prices.merge(price, 1, Integer::sum);
+    }
+
+    private void remove(Long id) {
+        Entry entry = products.remove(id);
+        if (entry == null) {
+            return;
+        }
+        Category category = categories.get(entry.category);
+        category.ids.remove(id);
+        category.inStock -= inStock(entry.stock);
+        category.prices.computeIfPresent(entry.price, (price, count) -> count == 1 ? null : count - 1);
+        if (category.ids.size == 0) {
+            categories.remove(entry.category);
+        }
+    }
+
+    private static int inStock(int stock) {
+        return stock > 0 ? 1 : 0;
+    }
+
+    private static final class Entry {
+        private final String category;
+        private final BigDecimal price;
+        private int stock;
+
+        private Entry(String category, BigDecimal price, int stock) {
+            this.category = category;
+            this.price = price;
+            this.stock = stock;
+        }
+    }
+
+    private static final class Category {
+        private final SortedLongs ids = new SortedLongs();
+        private int inStock;
+        // Số sản phẩm theo từng mức giá, để biết min/max giá kể cả sau khi xóa
+        private final TreeMap<BigDecimal, Integer> prices = new TreeMap<>();
+    }
+
+    // Mảng long tăng dần; sản phẩm mới có ID lớn nhất nên thường chỉ cần nối vào cuối
+    private static final class SortedLongs {
+        private long[] values = new long[8];
+        private int size;
+
+        void add(long value) {
+            int index = size == 0 || values[size - 1] < value ? size : Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0 && index < size) {
+                return;
+            }
+            int insertAt = index >= 0 ? index : -index - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+            values[insertAt] = value;
+            size++;
+        }
+
+        void remove(long value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, size - index - 1);
+                size--;
+            }
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.soa.product.search;
+
+import com.soa.product.dto.ProductDTO;
+import com.soa.product.model.Product;
+import com.soa.product.repository.ProductRepository;
+import com.soa.product.service.ProductChangedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Chỉ mục đảo (inverted index) theo tri-gram trên tên và mô tả sản phẩm, giữ trong bộ nhớ.
+ * Mỗi sản phẩm có một doc ID nội bộ tăng dần nên posting list luôn được sắp xếp; sửa/xóa sản phẩm
+ * đánh dấu doc cũ là đã xóa, khi số doc đã xóa quá nhiều thì chỉ mục được nén lại.
+ */
+@Component
+@Slf4j
+public class ProductSearchIndex {
+    private static final int NAME_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ProductRepository productRepository;
+    private final double minSimilarity;
+    private final int buildBatchSize;
+    private final Timer queryTimer;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, IntList> namePostings = new HashMap<>();
+    private final Map<String, IntList> descriptionPostings = new HashMap<>();
+    // doc ID nội bộ -> sản phẩm; phần tử null là doc đã bị xóa
+    private final List<IndexedProduct> docs = new ArrayList<>();
+    private final Map<Long, Integer> docIdsByProduct = new HashMap<>();
+    private int deletedDocs;
+
+    public ProductSearchIndex(ProductRepository productRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${product.search.min-similarity:0.5}") double minSimilarity,
+                              @Value("${product.search.build-batch-size:1000}") int buildBatchSize) {
+        this.productRepository = productRepository;
+        this.minSimilarity = minSimilarity;
+        this.buildBatchSize = buildBatchSize;
+        this.queryTimer = Timer.builder("product.search.query")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("product.search.index.documents", this, ProductSearchIndex::size)
+                .register(meterRegistry);
+        Gauge.builder("product.search.index.grams", this, ProductSearchIndex::gramCount)
+                .register(meterRegistry);
+        Gauge.builder("product.search.index.memory", this, ProductSearchIndex::estimatedBytes)
+                .baseUnit("bytes")
+                .description("Ước lượng bộ nhớ của chỉ mục tìm kiếm")
+                .register(meterRegistry);
+    }
+
+    // Chạy trước khi web server nhận request, nên không có cập nhật nào chen vào giữa lúc dựng chỉ mục
+    @PostConstruct
+    void build() {
+        long start = System.nanoTime();
+        Limit batch = Limit.of(buildBatchSize);
+        long afterId = 0;
+        while (true) {
+            List<Product> products = productRepository.findByIdGreaterThanOrderByIdAsc(afterId, batch);
+            if (products.isEmpty()) {
+                break;
+            }
+            lock.writeLock().lock();
+            try {
+                for (Product product : products) {
+                    add(product.getId(), product.getName(), product.getDescription(), product.getCategory());
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            afterId = products.get(products.size() - 1).getId();
+        }
+        log.info("Product search index built: {} products, {} grams in {} ms",
+                size(), gramCount(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            remove(event.getProductId());
+            ProductDTO product = event.getProduct();
+            if (product != null) {
+                add(product.getId(), product.getName(), product.getDescription(), product.getCategory());
+            }
+            if (deletedDocs > 1000 && deletedDocs > docs.size() / 4) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Tìm sản phẩm có tên/mô tả gần với truy vấn; trả về ID sản phẩm theo thứ tự điểm giảm dần.
+     * Điểm của tên được nhân đôi so với mô tả.
+     */
+    public Page<Long> search(String query, String category, Pageable pageable) {
+        return queryTimer.record(() -> doSearch(query, category, pageable));
+    }
+
+    private Page<Long> doSearch(String query, String category, Pageable pageable) {
+        Set<String> grams = grams(query);
+        if (grams.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Map<Integer, int[]> matches = new HashMap<>();
+            for (String gram : grams) {
+                collect(namePostings.get(gram), 0, category, matches);
+                collect(descriptionPostings.get(gram), 1, category, matches);
+            }
+            int required = (int) Math.ceil(grams.size() * minSimilarity);
+            int maxScore = (NAME_WEIGHT + DESCRIPTION_WEIGHT) * grams.size();
+            matches.forEach((docId, counts) -> {
+                if (Math.max(counts[0], counts[1]) >= required) {
+                    double score = (NAME_WEIGHT * counts[0] + DESCRIPTION_WEIGHT * counts[1]) / (double) maxScore;
+                    hits.add(new Hit(docs.get(docId).productId(), score));
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        hits.sort(Comparator.comparingDouble(Hit::score).reversed().thenComparingLong(Hit::productId));
+        int from = (int) Math.min(pageable.getOffset(), hits.size());
+        int to = Math.min(from + pageable.getPageSize(), hits.size());
+        List<Long> page = hits.subList(from, to).stream().map(Hit::productId).toList();
+        return new PageImpl<>(page, pageable, hits.size());
+    }
+
+    private void collect(IntList postings, int field, String category, Map<Integer, int[]> matches) {
+        if (postings == null) {
+            return;
+        }
+        for (int i = 0; i < postings.size; i++) {
+            int docId = postings.values[i];
+            IndexedProduct doc = docs.get(docId);
+            if (doc == null || (category != null && !category.equalsIgnoreCase(doc.category()))) {
+                continue;
+            }
+            matches.computeIfAbsent(docId, id -> new int[2])[field]++;
+        }
+    }
+
+    private void add(Long productId, String name, String description, String category) {
+        int docId = docs.size();
+        docs.add(new IndexedProduct(productId, category));
+        docIdsByProduct.put(productId, docId);
+        for (String gram : grams(name)) {
+            namePostings.computeIfAbsent(gram, g -> new IntList()).add(docId);
+        }
+        for (String gram : grams(description)) {
+            descriptionPostings.computeIfAbsent(gram, g -> new IntList()).add(docId);
+        }
+    }
+
+    private void remove(Long productId) {
+        Integer docId = docIdsByProduct.remove(productId);
+        if (docId != null) {
+            docs.set(docId, null);
+            deletedDocs++;
+        }
+    }
+
+    // Đánh lại doc ID liên tục và bỏ các doc đã xóa khỏi posting list
+    private void compact() {
+        int[] remap = new int[docs.size()];
+        List<IndexedProduct> live = new ArrayList<>(docs.size() - deletedDocs);
+        for (int docId = 0; docId < docs.size(); docId++) {
+            IndexedProduct doc = docs.get(docId);
+            remap[docId] = doc == null ? -1 : live.size();
+            if (doc != null) {
+                docIdsByProduct.put(doc.productId(), live.size());
+                live.add(doc);
+            }
+        }
+        compact(namePostings, remap);
+        compact(descriptionPostings, remap);
+        docs.clear();
+        docs.addAll(live);
+        deletedDocs = 0;
+    }
+
+    private void compact(Map<String, IntList> postings, int[] remap) {
+        postings.values().removeIf(list -> {
+            list.remap(remap);
+            return list.size == 0;
+        });
+    }
+
+    private int size() {
+        lock.readLock().lock();
+        try {
+            return docIdsByProduct.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int gramCount() {
+        lock.readLock().lock();
+        try {
+            return namePostings.size() + descriptionPostings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ước lượng thô theo kích thước object trên JVM 64-bit có nén con trỏ
+    private long estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (Map<String, IntList> postings : List.of(namePostings, descriptionPostings)) {
+                for (IntList list : postings.values()) {
+                    // entry HashMap + key String 3 ký tự + IntList + mảng int
+                    bytes += 32 + 48 + 24 + 16 + 4L * list.values.length;
+                }
+            }
+            bytes += docs.size() * 40L + docIdsByProduct.size() * 64L;
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Tri-gram theo từng từ, có đệm ở hai đầu (giống pg_trgm) để từ ngắn và tiền tố vẫn khớp được
+    static Set<String> grams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (text == null || text.isBlank()) {
+            return grams;
+        }
+        String normalized = MARKS.matcher(Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD))
+                .replaceAll("")
+                .replace('đ', 'd');
+        for (String word : NON_WORD.split(normalized)) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                grams.add(padded.substring(i, i + 3));
+            }
+        }
+        return grams;
+    }
+
+    private record IndexedProduct(Long productId, String category) {
+    }
+
+    private record Hit(Long productId, double score) {
+    }
+
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void remap(int[] remap) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int mapped = remap[values[i]];
+                if (mapped >= 0) {
+                    values[kept++] = mapped;
+                }
+            }
+            size = kept;
+            if (values.length > 4 && size < values.length / 4) {
+                values = Arrays.copyOf(values, Math.max(4, size));
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.soa.product.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Timing wheel phân cấp cho thời điểm hết hạn của các lượt giữ hàng.
+ * <p>
+ * Tầng 0 có {@code wheelSize} ô, mỗi ô dài {@code tickMs}; mỗi tầng trên có ô dài bằng cả vòng của tầng dưới.
+ * Thêm một mục là O(1) (chọn tầng thấp nhất chứa được thời điểm hết hạn), mỗi tick chỉ xử lý đúng một ô của
+ * tầng 0; khi tầng 0 quay hết vòng, ô kế tiếp của tầng trên được hạ xuống. Mỗi mục chỉ là hai số long trong
+ * mảng của ô nên wheel giữ được hàng triệu mục mà không cần timer riêng cho từng mục.
+ * <p>
+ * Mục không bị gỡ khi lượt giữ hàng được xác nhận/hoàn lại trước hạn: người gọi tự bỏ qua khi mục đến hạn.
+ */
+class HierarchicalTimingWheel {
+    private final long tickMs;
+    private final int wheelSize;
+    private final List<Level> levels = new ArrayList<>();
+    private long size;
+
+    HierarchicalTimingWheel(long tickMs, int wheelSize, long startMs) {
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        levels.add(new Level(tickMs, startMs - startMs % tickMs));
+    }
+
+    synchronized void add(long id, long expiresAtMs) {
+        place(id, expiresAtMs);
+        size++;
+    }
+
+    synchronized long size() {
+        return size;
+    }
+
+    /**
+     * Quay wheel tới thời điểm {@code nowMs} và trả về ID của các mục đã hết hạn (có thể trễ tối đa một tick).
+     */
+    synchronized List<Long> advance(long nowMs) {
+        List<Long> expired = new ArrayList<>();
+        Level bottom = levels.get(0);
+        if (size == 0) {
+            // Wheel rỗng: nhảy thẳng tới hiện tại thay vì quay từng tick
+            for (Level level : levels) {
+                level.currentTime = Math.max(level.currentTime, nowMs - nowMs % level.tickMs);
+            }
+            return expired;
+        }
+        while (nowMs >= bottom.currentTime + tickMs) {
+            Bucket due = bottom.buckets[bottom.slot(bottom.currentTime)];
+            for (int i = 0; i < due.size; i++) {
+                expired.add(due.ids[i]);
+            }
+            size -= due.size;
+            due.clear();
+            bottom.currentTime += tickMs;
+            cascade(bottom.currentTime);
+        }
+        return expired;
+    }
+
+    // Tầng 0 vừa sang một vòng mới của tầng i: hạ ô hiện tại của tầng i xuống các tầng dưới (từ tầng cao nhất)
+    private void cascade(long now) {
+        for (int i = 1; i < levels.size(); i++) {
+            Level level = levels.get(i);
+            if (now % level.tickMs == 0) {
+                level.currentTime = now;
+            }
+        }
+        for (int i = levels.size() - 1; i >= 1; i--) {
+            Level level = levels.get(i);
+            if (now % level.tickMs != 0) {
+                continue;
+            }
+            Bucket bucket = level.buckets[level.slot(now)];
+            if (bucket.size == 0) {
+                continue;
+            }
+            long[] ids = Arrays.copyOf(bucket.ids, bucket.size);
+            long[] expirations = Arrays.copyOf(bucket.expirations, bucket.size);
+            bucket.clear();
+            for (int j = 0; j < ids.length; j++) {
+                place(ids[j], expirations[j]);
+            }
+        }
+    }
+
+    private void place(long id, long expiresAtMs) {
+        Level bottom = levels.get(0);
+        long expiration = Math.max(expiresAtMs, bottom.currentTime);
+        for (int i = 0; ; i++) {
+            if (i == levels.size()) {
+                Level top = levels.get(i - 1);
+                long levelTick = top.tickMs * wheelSize;
+                levels.add(new Level(levelTick, bottom.currentTime - bottom.currentTime % levelTick));
+            }
+            // Mục lên tới tầng i chỉ khi nằm ngoài vòng của tầng i - 1, nên không bao giờ rơi vào ô hiện tại của tầng i
+            Level level = levels.get(i);
+            if (expiration < level.currentTime + level.interval()) {
+                level.buckets[level.slot(expiration)].add(id, expiresAtMs);
+                return;
+            }
+        }
+    }
+
+    private class Level {
+        private final long tickMs;
+        private final Bucket[] buckets;
+        private long currentTime;
+
+        private Level(long tickMs, long currentTime) {
+            this.tickMs = tickMs;
+            this.currentTime = currentTime;
+            this.buckets = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket();
+            }
+        }
+
+        private long interval() {
+            return tickMs * wheelSize;
+        }
+
+        private int slot(long time) {
+            return (int) ((time / tickMs) % wheelSize);
+        }
+    }
+
+    // Một ô của wheel: hai mảng song song thay vì một object cho mỗi mục
+    private static class Bucket {
+        private static final long[] EMPTY = new long[0];
+
+        private long[] ids = EMPTY;
+        private long[] expirations = EMPTY;
+        private int size;
+
+        private void add(long id, long expiresAtMs) {
+            if (size == ids.length) {
+                int capacity = Math.max(8, size * 2);
+                ids = Arrays.copyOf(ids, capacity);
+                expirations = Arrays.copyOf(expirations, capacity);
+            }
+            ids[size] = id;
+            expirations[size] = expiresAtMs;
+            size++;
+        }
+
+        // Trả lại bộ nhớ của ô đã xử lý, ô sẽ chỉ được dùng lại sau một vòng
+        private void clear() {
+            ids = EMPTY;
+            expirations = EMPTY;
+            size = 0;
+        }
+    }
+}
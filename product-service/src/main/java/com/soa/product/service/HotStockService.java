@@ -0,0 +1,193 @@
+package com.soa.product.service;
+
+import com.soa.product.model.HotStockJournalEntry;
+import com.soa.product.model.Product;
+import com.soa.product.repository.HotStockJournalRepository;
+import com.soa.product.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chế độ bán nhanh cho các sản phẩm được chỉ định (flash sale).
+ * <p>
+ * Khi bật, toàn bộ tồn kho của sản phẩm được giao cho một bộ đếm phân ô trong bộ nhớ (cột hot_allocated),
+ * nên các câu UPDATE trực tiếp không thể bán phần này. Mỗi lần trừ hàng chỉ CAS trên bộ đếm và thêm một dòng
+ * vào hot_stock_journal (INSERT, không khóa dòng products). Flusher định kỳ cộng dồn journal vào cột stock.
+ * Khi khởi động lại, journal được áp dụng trước rồi bộ đếm được dựng lại từ hot_allocated.
+ * <p>
+ * Bộ đếm nằm trong tiến trình, nên các request đặt hàng cho sản phẩm đang bán nhanh cần đi vào cùng một instance.
+ */
+@Service
+@Slf4j
+public class HotStockService {
+    private final ProductRepository productRepository;
+    private final HotStockJournalRepository journalRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int stripes;
+    private final int flushBatchSize;
+    private final Map<Long, StripedStockCounter> counters = new ConcurrentHashMap<>();
+
+    public HotStockService(ProductRepository productRepository,
+                           HotStockJournalRepository journalRepository,
+                           PlatformTransactionManager transactionManager,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${product.hot.stripes:16}") int stripes,
+                           @Value("${product.hot.flush-batch-size:1000}") int flushBatchSize) {
+        this.productRepository = productRepository;
+        this.journalRepository = journalRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.eventPublisher = eventPublisher;
+        this.stripes = stripes;
+        this.flushBatchSize = flushBatchSize;
+    }
+
+    @PostConstruct
+    void recover() {
+        int applied = flush();
+        transactionTemplate.executeWithoutResult(tx -> productRepository.clearStaleHotAllocations());
+        for (Product product : productRepository.findByHotTrue()) {
+            counters.put(product.getId(), new StripedStockCounter(stripes, product.getHotAllocated()));
+        }
+        if (!counters.isEmpty() || applied > 0) {
+            log.info("Recovered {} hot products after applying {} journal entries", counters.size(), applied);
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        int applied = flush();
+        log.info("Flushed {} hot stock journal entries on shutdown", applied);
+    }
+
+    public boolean isHot(Long productId) {
+        return counters.containsKey(productId);
+    }
+
+    // Số lượng còn bán được của sản phẩm đang ở chế độ bán nhanh
+    public OptionalInt available(Long productId) {
+        StripedStockCounter counter = counters.get(productId);
+        return counter == null ? OptionalInt.empty() : OptionalInt.of(counter.available());
+    }
+
+    public void enable(Long productId) {
+        Integer allocated = transactionTemplate.execute(tx -> {
+            if (productRepository.allocateHotStock(productId) == 0) {
+                throw productRepository.existsById(productId)
+                        ? new RuntimeException("Sản phẩm đã ở chế độ bán nhanh (ID: " + productId + ")")
+                        : new RuntimeException("Không tìm thấy sản phẩm với ID: " + productId);
+            }
+            return productRepository.findById(productId).map(Product::getHotAllocated).orElse(0);
+        });
+        counters.put(productId, new StripedStockCounter(stripes, allocated));
+        log.info("Product {} switched to hot stock mode with {} units", productId, allocated);
+    }
+
+    public void disable(Long productId) {
+        StripedStockCounter counter = counters.remove(productId);
+        if (counter == null) {
+            throw new RuntimeException("Sản phẩm không ở chế độ bán nhanh (ID: " + productId + ")");
+        }
+        int returned = counter.drain();
+        // Phần đã bán nhưng chưa flush vẫn được giữ lại trong hot_allocated cho tới khi flusher xử lý
+        transactionTemplate.executeWithoutResult(tx -> productRepository.disableHotStock(productId, returned));
+        flush();
+        log.info("Product {} left hot stock mode, {} units returned", productId, returned);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean tryReserve(Long productId, int quantity) {
+        StripedStockCounter counter = counters.get(productId);
+        if (counter == null || !counter.tryAcquire(quantity)) {
+            return false;
+        }
+        journalRepository.save(new HotStockJournalEntry(null, productId, quantity, LocalDateTime.now()));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    giveBack(productId, quantity, false);
+                }
+            }
+        });
+        return true;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(Long productId, int quantity) {
+        journalRepository.save(new HotStockJournalEntry(null, productId, -quantity, LocalDateTime.now()));
+        // Chỉ trả hàng về bộ đếm khi transaction đã commit, tránh bán phần hàng chưa thực sự được hoàn
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                giveBack(productId, quantity, true);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${product.hot.flush-interval-ms:1000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    // Cộng dồn journal vào bảng products theo lô; xóa đúng các dòng đã đọc để không mất dòng commit muộn
+    public synchronized int flush() {
+        int applied = 0;
+        while (true) {
+            Integer flushed = newTransactionTemplate.execute(tx -> {
+                List<HotStockJournalEntry> entries = journalRepository.findByOrderByIdAsc(Limit.of(flushBatchSize));
+                if (entries.isEmpty()) {
+                    return 0;
+                }
+                Map<Long, Integer> sold = new TreeMap<>();
+                for (HotStockJournalEntry entry : entries) {
+                    sold.merge(entry.getProductId(), entry.getQuantity(), Integer::sum);
+                }
+                sold.forEach(productRepository::applyHotSales);
+                journalRepository.deleteAllInBatch(entries);
+                eventPublisher.publishEvent(new ProductStockChangedEvent(sold.keySet()));
+                return entries.size();
+            });
+            applied += flushed;
+            if (flushed < flushBatchSize) {
+                return applied;
+            }
+        }
+    }
+
+    private void giveBack(Long productId, int quantity, boolean journaled) {
+        StripedStockCounter counter = counters.get(productId);
+        if (counter != null) {
+            counter.release(quantity);
+            return;
+        }
+        // Sản phẩm vừa bị tắt chế độ bán nhanh: trả phần hàng này về cho các câu UPDATE trực tiếp
+        if (journaled) {
+            flush();
+        }
+        newTransactionTemplate.executeWithoutResult(tx -> productRepository.releaseHotAllocation(productId, quantity));
+    }
+}
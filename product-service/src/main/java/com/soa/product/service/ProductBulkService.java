@@ -0,0 +1,247 @@
+package com.soa.product.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.soa.product.dto.BulkImportError;
+import com.soa.product.dto.BulkImportResult;
+import com.soa.product.dto.ProductDTO;
+import com.soa.product.model.Product;
+import com.soa.product.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Đồng bộ danh mục theo lô với ERP. Đầu vào/đầu ra là CSV (có dòng tiêu đề) hoặc NDJSON các ProductDTO,
+ * được đọc/ghi tuần tự; sản phẩm được so khớp theo SKU để thêm mới hoặc cập nhật. Nếu ghi chunk lỗi, các dòng
+ * của chunk được ghi lại từng dòng để lỗi được báo cho đúng dòng gây ra.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductBulkService {
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final CsvMapper CSV_MAPPER = CsvMapper.builder()
+            .enable(CsvParser.Feature.EMPTY_STRING_AS_NULL)
+            .enable(CsvParser.Feature.TRIM_SPACES)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+    private static final CsvSchema CSV_SCHEMA = CsvSchema.builder()
+            .addColumn("id")
+            .addColumn("sku")
+            .addColumn("name")
+            .addColumn("description")
+            .addColumn("price")
+            .addColumn("stock")
+            .addColumn("category")
+            .build()
+            .withHeader();
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${product.bulk.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${product.export.chunk-size:500}")
+    private int exportChunkSize;
+
+    public BulkImportResult importProducts(InputStream in, Format format) throws IOException {
+        long start = System.nanoTime();
+        ImportProgress progress = new ImportProgress();
+        List<ProductDTO> chunk = new ArrayList<>(chunkSize);
+        List<Long> chunkIndexes = new ArrayList<>(chunkSize);
+
+        // CSV dùng dòng tiêu đề của file nên thứ tự cột không bắt buộc giống export
+        ObjectReader reader = format == Format.CSV
+                ? CSV_MAPPER.readerFor(ProductDTO.class).with(CsvSchema.emptySchema().withHeader())
+                : objectMapper.readerFor(ProductDTO.class);
+        try (MappingIterator<ProductDTO> records = reader.readValues(in)) {
+            while (records.hasNextValue()) {
+                long index = progress.received++;
+                try {
+                    ProductDTO record = records.nextValue();
+                    validate(record);
+                    chunk.add(record);
+                    chunkIndexes.add(index);
+                } catch (RuntimeException e) {
+                    progress.fail(index, e.getMessage());
+                }
+                if (chunk.size() == chunkSize) {
+                    upsertChunk(chunk, chunkIndexes, progress);
+                    chunk.clear();
+                    chunkIndexes.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            upsertChunk(chunk, chunkIndexes, progress);
+        }
+
+        long imported = progress.created + progress.updated;
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        double rowsPerSecond = imported * 1000.0 / elapsedMs;
+        log.info("Catalogue import finished: {} created, {} updated, {} failed in {} ms ({} rows/s)",
+                progress.created, progress.updated, progress.failed, elapsedMs, Math.round(rowsPerSecond));
+        return new BulkImportResult(progress.received, imported, progress.created, progress.updated,
+                progress.failed, elapsedMs, rowsPerSecond, progress.errors);
+    }
+
+    public void exportProducts(Format format, OutputStream out) throws IOException {
+        Limit chunk = Limit.of(exportChunkSize);
+        long afterId = 0;
+
+        try (SequenceWriter writer = format == Format.CSV
+                ? CSV_MAPPER.writer(CSV_SCHEMA).writeValues(out)
+                : objectMapper.writerFor(ProductDTO.class).withRootValueSeparator("\n").writeValues(out)) {
+            while (true) {
+                long lastId = afterId;
+                // Duyệt theo keyset trên id, mỗi chunk một transaction ngắn để không giữ cả bảng trong bộ nhớ
+                List<ProductDTO> products = transactionTemplate.execute(tx ->
+                        productRepository.findByIdGreaterThanOrderByIdAsc(lastId, chunk).stream()
+                                .map(productService::toDTO)
+                                .collect(Collectors.toList()));
+                if (products == null || products.isEmpty()) {
+                    break;
+                }
+                writer.writeAll(products);
+                writer.flush();
+                afterId = products.get(products.size() - 1).getId();
+            }
+        }
+    }
+
+    private void upsertChunk(List<ProductDTO> records, List<Long> indexes, ImportProgress progress) {
+        try {
+            upsert(records, indexes, progress);
+        } catch (RuntimeException e) {
+            // Một dòng lỗi khi flush làm hỏng cả chunk: ghi lại từng dòng để chỉ dòng lỗi bị bỏ và báo đúng lý do
+            log.warn("Catalogue import chunk starting at record {} failed, retrying row by row: {}",
+                    indexes.get(0), e.getMessage());
+            for (int i = 0; i < records.size(); i++) {
+                try {
+                    upsert(List.of(records.get(i)), List.of(indexes.get(i)), progress);
+                } catch (RuntimeException rowError) {
+                    progress.fail(indexes.get(i), rowError.getMessage());
+                }
+            }
+        }
+    }
+
+    // Ghi các bản ghi trong một transaction; progress chỉ được cộng khi transaction commit
+    private void upsert(List<ProductDTO> records, List<Long> indexes, ImportProgress progress) {
+        ChunkResult result = new ChunkResult();
+        transactionTemplate.executeWithoutResult(tx -> {
+            result.reset();
+            Set<String> skus = records.stream().map(ProductDTO::getSku).collect(Collectors.toSet());
+            Map<String, Product> existing = productRepository.findBySkuIn(skus).stream()
+                    .collect(Collectors.toMap(Product::getSku, Function.identity()));
+            Map<String, Product> changed = new LinkedHashMap<>();
+
+            for (int i = 0; i < records.size(); i++) {
+                ProductDTO record = records.get(i);
+                Product product = existing.get(record.getSku());
+                try {
+                    if (product == null) {
+                        product = productService.toEntity(record);
+                        entityManager.persist(product);
+                        existing.put(product.getSku(), product);
+                        result.created++;
+                    } else {
+                        productService.applyChanges(product, record);
+                        result.updated++;
+                    }
+                    changed.put(product.getSku(), product);
+                } catch (RuntimeException e) {
+                    result.errors.add(new BulkImportError(indexes.get(i), e.getMessage()));
+                }
+            }
+
+            // flush để Hibernate gửi INSERT/UPDATE theo JDBC batch, clear để persistence context không phình ra
+            entityManager.flush();
+            for (Product product : changed.values()) {
+                ProductDTO dto = productService.toDTO(product);
+                eventPublisher.publishEvent(new ProductChangedEvent(dto.getId(), dto));
+            }
+            entityManager.clear();
+        });
+        progress.created += result.created;
+        progress.updated += result.updated;
+        result.errors.forEach(error -> progress.fail(error.getIndex(), error.getMessage()));
+    }
+
+    private void validate(ProductDTO record) {
+        if (record == null || record.getSku() == null || record.getSku().isBlank()) {
+            throw new RuntimeException("SKU không được để trống");
+        }
+        if (record.getName() == null || record.getName().isBlank()) {
+            throw new RuntimeException("Tên sản phẩm không được để trống");
+        }
+        if (record.getCategory() == null || record.getCategory().isBlank()) {
+            throw new RuntimeException("Danh mục không được để trống");
+        }
+        if (record.getPrice() == null || record.getPrice().signum() < 0) {
+            throw new RuntimeException("Giá phải lớn hơn hoặc bằng 0");
+        }
+        if (record.getStock() == null || record.getStock() < 0) {
+            throw new RuntimeException("Tồn kho phải lớn hơn hoặc bằng 0");
+        }
+    }
+
+    private static class ImportProgress {
+        private long received;
+        private long created;
+        private long updated;
+        private long failed;
+        private final List<BulkImportError> errors = new ArrayList<>();
+
+        private void fail(long index, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new BulkImportError(index, message));
+            }
+        }
+    }
+
+    private static class ChunkResult {
+        private long created;
+        private long updated;
+        private final List<BulkImportError> errors = new ArrayList<>();
+
+        private void reset() {
+            created = 0;
+            updated = 0;
+            errors.clear();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.soa.product.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Nhật ký thay đổi sản phẩm có đánh số phiên bản tăng dần, ghi sau khi transaction commit.
+ * <p>
+ * Mỗi phiên bản chỉ lưu ID sản phẩm bị thay đổi, trong một vòng đệm cố định; người đọc lấy trạng thái hiện tại
+ * của các sản phẩm đó từ DB. Phiên bản được cấp theo đúng thứ tự ghi nên không có lỗ hổng: đọc từ phiên bản
+ * {@code since} luôn thấy mọi thay đổi sau đó. Khi {@code since} đã bị ghi đè (quá cũ) hoặc thuộc nhật ký của
+ * một lần khởi động khác ({@code logId}), người đọc phải đồng bộ lại toàn bộ.
+ * <p>
+ * Nhật ký nằm trong tiến trình, giống bộ đếm bán nhanh: bản sao phía đọc nên theo dõi một instance.
+ */
+@Component
+public class ProductChangeLog {
+    private final long logId = System.currentTimeMillis();
+    private final long[] productIds;
+    private long head;
+
+    public ProductChangeLog(@Value("${product.changes.capacity:100000}") int capacity,
+                            MeterRegistry meterRegistry) {
+        this.productIds = new long[capacity];
+        Gauge.builder("product.changes.version", this, ProductChangeLog::head)
+                .description("Latest version of the product change log")
+                .register(meterRegistry);
+    }
+
+    public long logId() {
+        return logId;
+    }
+
+    public synchronized long head() {
+        return head;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onProductChanged(ProductChangedEvent event) {
+        append(Set.of(event.getProductId()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onStockChanged(ProductStockChangedEvent event) {
+        append(event.getProductIds());
+    }
+
+    /**
+     * Các sản phẩm thay đổi trong khoảng ({@code since}, {@code since + limit}], hoặc null nếu cần đồng bộ lại.
+     */
+    synchronized Slice read(long since, int limit) {
+        long oldest = Math.max(1, head - productIds.length + 1);
+        if (since > head || since < oldest - 1) {
+            return null;
+        }
+        long to = Math.min(head, since + limit);
+        Set<Long> changed = new LinkedHashSet<>();
+        for (long version = since + 1; version <= to; version++) {
+            changed.add(productIds[slot(version)]);
+        }
+        return new Slice(to, head, changed);
+    }
+
+    private synchronized void append(Set<Long> ids) {
+        for (Long id : ids) {
+            head++;
+            productIds[slot(head)] = id;
+        }
+    }
+
+    private int slot(long version) {
+        return (int) ((version - 1) % productIds.length);
+    }
+
+    record Slice(long version, long head, Set<Long> productIds) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.soa.product.service;
+
+import com.soa.product.dto.ProductDTO;
+import lombok.Value;
+
+// Phát ra khi một sản phẩm được tạo, sửa hoặc xóa; các listener xử lý sau khi transaction commit
+@Value
+public class ProductChangedEvent {
+    Long productId;
+    // null nếu sản phẩm đã bị xóa
+    ProductDTO product;
+}
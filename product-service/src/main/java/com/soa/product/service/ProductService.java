@@ -1,19 +1,86 @@
 package com.soa.product.service;
 
+import com.soa.product.dto.CategoryFacetDTO;
+import com.soa.product.dto.ProductChangeDTO;
+import com.soa.product.dto.ProductChangesDTO;
 import com.soa.product.dto.ProductDTO;
+import com.soa.product.dto.StockItemRequest;
 import com.soa.product.model.Product;
 import com.soa.product.repository.ProductRepository;
+import com.soa.product.search.CategoryIndex;
+import com.soa.product.search.ProductSearchIndex;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService {
     private final ProductRepository productRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final CategoryIndex categoryIndex;
+    private final HotStockService hotStockService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final ProductChangeLog productChangeLog;
+
+    @Value("${product.cache.max-size:100000}")
+    private long cacheMaxSize;
+    @Value("${product.cache.ttl:10m}")
+    private Duration cacheTtl;
+    @Value("${product.cache.max-stock-staleness:2s}")
+    private Duration maxStockStaleness;
+
+    // Cache đọc xuyên (read-through) cho ProductDTO; tồn kho trong cache được đọc lại khi cũ quá giới hạn
+    private LoadingCache<Long, CachedProduct> productCache;
+
+    @PostConstruct
+    void initCache() {
+        productCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(cacheTtl)
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public CachedProduct load(Long id) {
+                        return productRepository.findById(id).map(ProductService.this::cached).orElse(null);
+                    }
+
+                    @Override
+                    public Map<Long, CachedProduct> loadAll(Set<? extends Long> ids) {
+                        return productRepository.findAllById(new ArrayList<>(ids)).stream()
+                                .collect(Collectors.toMap(Product::getId, ProductService.this::cached));
+                    }
+                });
+        CaffeineCacheMetrics.monitor(meterRegistry, productCache, "products");
+    }
 
     public List<ProductDTO> getAllProducts() {
         return productRepository.findAll().stream()
@@ -22,22 +89,112 @@ public class ProductService {
     }
 
     public ProductDTO getProductById(Long id) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Không tìm thấy sản phẩm với ID: " + id));
-        return toDTO(product);
+        // Các request đồng thời cùng trượt cache chỉ tạo một lần đọc DB
+        CachedProduct cached = productCache.get(id);
+        if (cached == null) {
+            throw new RuntimeException("Không tìm thấy sản phẩm với ID: " + id);
+        }
+        return withFreshStock(Map.of(id, cached)).get(0);
     }
 
-    public List<ProductDTO> getProductsByCategory(String category) {
-        return productRepository.findByCategory(category).stream()
-                .map(this::toDTO)
+    public List<ProductDTO> getProductsByIds(Collection<Long> ids) {
+        return withFreshStock(productCache.getAll(new LinkedHashSet<>(ids)));
+    }
+
+    public Page<ProductDTO> getProductsByCategory(String category, Pageable pageable) {
+        return loadPage(categoryIndex.page(category, pageable), pageable);
+    }
+
+    public List<CategoryFacetDTO> getCategoryFacets() {
+        return categoryIndex.facets();
+    }
+
+    public Page<ProductDTO> searchProducts(String query, String category, Pageable pageable) {
+        return loadPage(productSearchIndex.search(query, category, pageable), pageable);
+    }
+
+    // Chỉ lấy các sản phẩm của trang hiện tại (qua cache), giữ nguyên thứ tự do chỉ mục trả về
+    private Page<ProductDTO> loadPage(Page<Long> ids, Pageable pageable) {
+        Map<Long, ProductDTO> products = getProductsByIds(ids.getContent()).stream()
+                .collect(Collectors.toMap(ProductDTO::getId, Function.identity()));
+        List<ProductDTO> page = ids.getContent().stream()
+                .map(products::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
+        return new PageImpl<>(page, pageable, ids.getTotalElements());
+    }
+
+    // Đọc thẳng từ DB (không qua cache) để trạng thái trả về luôn mới hơn các phiên bản đã đọc
+    @Transactional(readOnly = true)
+    public ProductChangesDTO getChanges(long since, int limit) {
+        ProductChangeLog.Slice slice = productChangeLog.read(since, limit);
+        if (slice == null) {
+            long head = productChangeLog.head();
+            return new ProductChangesDTO(productChangeLog.logId(), head, head, true, List.of());
+        }
+        Map<Long, Product> products = productRepository.findAllById(slice.productIds()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<ProductChangeDTO> changes = slice.productIds().stream()
+                .map(id -> {
+                    Product product = products.get(id);
+                    return product == null
+                            ? new ProductChangeDTO(id, true, null, null, null)
+                            : new ProductChangeDTO(id, false, product.getName(), product.getPrice(),
+                                    currentStock(product));
+                })
+                .collect(Collectors.toList());
+        return new ProductChangesDTO(productChangeLog.logId(), slice.version(), slice.head(), false, changes);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onProductChanged(ProductChangedEvent event) {
+        productCache.invalidate(event.getProductId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onStockChanged(ProductStockChangedEvent event) {
+        productCache.invalidateAll(event.getProductIds());
+    }
+
+    /**
+     * Trả về bản sao DTO với tồn kho không cũ hơn product.cache.max-stock-staleness: sản phẩm bán nhanh lấy
+     * trực tiếp từ bộ đếm, các mục đọc tồn kho quá lâu được đọc lại tồn kho bằng một truy vấn theo lô.
+     */
+    private List<ProductDTO> withFreshStock(Map<Long, CachedProduct> cached) {
+        long now = System.nanoTime();
+        List<Long> stale = cached.values().stream()
+                .filter(entry -> now - entry.stockReadAt() > maxStockStaleness.toNanos())
+                .map(entry -> entry.product().getId())
+                .collect(Collectors.toList());
+        Map<Long, Integer> stocks = new HashMap<>();
+        if (!stale.isEmpty()) {
+            for (Object[] row : productRepository.findAvailableStocksByIds(stale)) {
+                stocks.put((Long) row[0], (Integer) row[1]);
+            }
+        }
+
+        List<ProductDTO> products = new ArrayList<>(cached.size());
+        cached.forEach((id, entry) -> {
+            ProductDTO product = copy(entry.product());
+            OptionalInt hotStock = hotStockService.available(id);
+            if (hotStock.isPresent()) {
+                product.setStock(hotStock.getAsInt());
+            } else if (stocks.containsKey(id)) {
+                product.setStock(stocks.get(id));
+                productCache.asMap().replace(id, entry, new CachedProduct(copy(product), now));
+            }
+            products.add(product);
+        });
+        return products;
     }
 
     @Transactional
     public ProductDTO createProduct(ProductDTO productDTO) {
         Product product = toEntity(productDTO);
         product = productRepository.save(product);
-        return toDTO(product);
+        ProductDTO created = toDTO(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(created.getId(), created));
+        return created;
     }
 
     @Transactional
@@ -45,27 +202,54 @@ public class ProductService {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy sản phẩm với ID: " + id));
         
-        product.setName(productDTO.getName());
-        product.setDescription(productDTO.getDescription());
-        product.setPrice(productDTO.getPrice());
-        product.setStock(productDTO.getStock());
-        product.setCategory(productDTO.getCategory());
+        applyChanges(product, productDTO);
         
         product = productRepository.save(product);
-        return toDTO(product);
+        ProductDTO updated = toDTO(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(id, updated));
+        return updated;
     }
 
     @Transactional
     public void updateStock(Long id, Integer quantity) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Không tìm thấy sản phẩm với ID: " + id));
-        
-        if (product.getStock() < quantity) {
-            throw new RuntimeException("Số lượng sản phẩm không đủ. Hiện có: " + product.getStock());
+        if (hotStockService.isHot(id)) {
+            if (!hotStockService.tryReserve(id, quantity)) {
+                throw insufficientStock(id);
+            }
+            return;
         }
-        
-        product.setStock(product.getStock() - quantity);
-        productRepository.save(product);
+        // Trừ tồn kho bằng một câu UPDATE có điều kiện để tránh lost update khi đặt hàng đồng thời
+        if (productRepository.decrementStock(id, quantity) == 0) {
+            throw insufficientStock(id);
+        }
+        eventPublisher.publishEvent(new ProductStockChangedEvent(Set.of(id)));
+    }
+
+    @Transactional
+    public void reserveStock(List<StockItemRequest> items) {
+        Map<Long, Integer> quantities = regularQuantities(mergeQuantities(items), true);
+        if (quantities.isEmpty()) {
+            return;
+        }
+        int[] updated = productRepository.batchDecrementStock(quantities);
+        int index = 0;
+        for (Long productId : quantities.keySet()) {
+            if (updated[index++] == 0) {
+                // Ném exception để rollback toàn bộ batch: hoặc giữ được tất cả, hoặc không gì cả
+                throw insufficientStock(productId);
+            }
+        }
+        eventPublisher.publishEvent(new ProductStockChangedEvent(quantities.keySet()));
+    }
+
+    @Transactional
+    public void releaseStock(List<StockItemRequest> items) {
+        Map<Long, Integer> quantities = regularQuantities(mergeQuantities(items), false);
+        if (quantities.isEmpty()) {
+            return;
+        }
+        productRepository.batchIncrementStock(quantities);
+        eventPublisher.publishEvent(new ProductStockChangedEvent(quantities.keySet()));
     }
 
     @Transactional
@@ -73,22 +257,94 @@ public class ProductService {
         if (!productRepository.existsById(id)) {
             throw new RuntimeException("Không tìm thấy sản phẩm với ID: " + id);
         }
+        if (hotStockService.isHot(id)) {
+            throw new RuntimeException("Hãy tắt chế độ bán nhanh trước khi xóa sản phẩm (ID: " + id + ")");
+        }
         productRepository.deleteById(id);
+        eventPublisher.publishEvent(new ProductChangedEvent(id, null));
+    }
+
+    // Gộp số lượng theo sản phẩm, sắp theo ID để các giao dịch đồng thời khóa dòng theo cùng thứ tự
+    private Map<Long, Integer> mergeQuantities(List<StockItemRequest> items) {
+        return items.stream()
+                .collect(Collectors.toMap(StockItemRequest::getProductId, StockItemRequest::getQuantity,
+                        Integer::sum, TreeMap::new));
+    }
+
+    // Sản phẩm đang bán nhanh được trừ/hoàn trên bộ đếm; trả về phần còn lại cần xử lý bằng UPDATE trực tiếp
+    private Map<Long, Integer> regularQuantities(Map<Long, Integer> quantities, boolean reserve) {
+        Map<Long, Integer> regular = new TreeMap<>();
+        quantities.forEach((productId, quantity) -> {
+            if (!hotStockService.isHot(productId)) {
+                regular.put(productId, quantity);
+            } else if (!reserve) {
+                hotStockService.release(productId, quantity);
+            } else if (!hotStockService.tryReserve(productId, quantity)) {
+                throw insufficientStock(productId);
+            }
+        });
+        return regular;
+    }
+
+    private int currentStock(Product product) {
+        return hotStockService.available(product.getId())
+                .orElse(product.getStock() - product.getHotAllocated());
+    }
+
+    private StockRejectedException insufficientStock(Long id) {
+        if (hotStockService.isHot(id)) {
+            return new StockRejectedException("Số lượng sản phẩm không đủ (ID: " + id + "). Hiện có: "
+                    + hotStockService.available(id).orElse(0));
+        }
+        return productRepository.findStockById(id)
+                .map(stock -> new StockRejectedException(
+                        "Số lượng sản phẩm không đủ (ID: " + id + "). Hiện có: " + stock))
+                .orElseGet(() -> new StockRejectedException("Không tìm thấy sản phẩm với ID: " + id));
+    }
+
+    void applyChanges(Product product, ProductDTO productDTO) {
+        if (productDTO.getSku() != null) {
+            product.setSku(productDTO.getSku());
+        }
+        product.setName(productDTO.getName());
+        product.setDescription(productDTO.getDescription());
+        product.setPrice(productDTO.getPrice());
+        if (!hotStockService.isHot(product.getId())) {
+            product.setStock(productDTO.getStock());
+        } else if (!Objects.equals(productDTO.getStock(), currentStock(product))) {
+            throw new RuntimeException("Không thể sửa tồn kho của sản phẩm đang ở chế độ bán nhanh (ID: "
+                    + product.getId() + ")");
+        }
+        product.setCategory(productDTO.getCategory());
+    }
+
+    private CachedProduct cached(Product product) {
+        return new CachedProduct(toDTO(product), System.nanoTime());
+    }
+
+    private ProductDTO copy(ProductDTO product) {
+        return new ProductDTO(product.getId(), product.getSku(), product.getName(), product.getDescription(),
+                product.getPrice(), product.getStock(), product.getCategory());
+    }
+
+    private record CachedProduct(ProductDTO product, long stockReadAt) {
     }
 
-    private ProductDTO toDTO(Product product) {
+    ProductDTO toDTO(Product product) {
         return new ProductDTO(
                 product.getId(),
+                product.getSku(),
                 product.getName(),
                 product.getDescription(),
                 product.getPrice(),
-                product.getStock(),
+                currentStock(product),
                 product.getCategory()
         );
     }
 
-    private Product toEntity(ProductDTO dto) {
+    Product toEntity(ProductDTO dto) {
         Product product = new Product();
+        product.setSku(dto.getSku());
         product.setName(dto.getName());
         product.setDescription(dto.getDescription());
         product.setPrice(dto.getPrice());
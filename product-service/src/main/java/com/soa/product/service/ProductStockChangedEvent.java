@@ -0,0 +1,11 @@
+package com.soa.product.service;
+
+import lombok.Value;
+
+import java.util.Set;
+
+// Phát ra khi tồn kho thay đổi qua các câu UPDATE trực tiếp (đặt/hoàn hàng), chỉ mang theo ID sản phẩm
+@Value
+public class ProductStockChangedEvent {
+    Set<Long> productIds;
+}
@@ -0,0 +1,92 @@
+package com.soa.product.service;
+
+import com.soa.product.dto.StockCommand;
+import com.soa.product.dto.StockCommandResult;
+import com.soa.product.dto.StockReservationRequest;
+import com.soa.product.model.ProcessedStockCommand;
+import com.soa.product.repository.ProcessedStockCommandRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockCommandService {
+    private final ProductService productService;
+    private final ProcessedStockCommandRepository processedStockCommandRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Transactional
+    public void reserve(StockReservationRequest request) {
+        if (request.getReference() != null
+                && !markProcessed(request.getReference(), ProcessedStockCommand.CommandType.RESERVE, null)) {
+            log.info("Reservation {} already applied, skipping", request.getReference());
+            return;
+        }
+        productService.reserveStock(request.getItems());
+    }
+
+    // Mỗi lệnh chạy trong transaction riêng: một lệnh bị từ chối không ảnh hưởng các lệnh khác trong batch
+    public List<StockCommandResult> apply(List<StockCommand> commands) {
+        return commands.stream()
+                .map(this::apply)
+                .collect(Collectors.toList());
+    }
+
+    private StockCommandResult apply(StockCommand command) {
+        try {
+            Boolean applied = transactionTemplate.execute(tx -> {
+                if (!markProcessed(command.getCommandId(), command.getType(), command.getReference())) {
+                    return false;
+                }
+                switch (command.getType()) {
+                    case RESERVE -> productService.reserveStock(command.getItems());
+                    case RELEASE -> release(command);
+                }
+                return true;
+            });
+            return new StockCommandResult(command.getCommandId(),
+                    Boolean.TRUE.equals(applied) ? StockCommandResult.Status.APPLIED : StockCommandResult.Status.DUPLICATE,
+                    null);
+        } catch (DataIntegrityViolationException e) {
+            // Cùng lệnh được gửi đồng thời: bên còn lại đã ghi nhận trước
+            return new StockCommandResult(command.getCommandId(), StockCommandResult.Status.DUPLICATE, null);
+        } catch (StockRejectedException e) {
+            log.info("Stock command {} rejected: {}", command.getCommandId(), e.getMessage());
+            return new StockCommandResult(command.getCommandId(), StockCommandResult.Status.REJECTED, e.getMessage());
+        } catch (RuntimeException e) {
+            // Lỗi tạm thời (DB bận, timeout khóa...): lệnh chưa được ghi nhận nên bên gửi có thể gửi lại
+            log.warn("Stock command {} failed: {}", command.getCommandId(), e.getMessage());
+            return new StockCommandResult(command.getCommandId(), StockCommandResult.Status.ERROR, e.getMessage());
+        }
+    }
+
+    private void release(StockCommand command) {
+        // Chỉ hoàn lại khi lệnh giữ hàng tương ứng thực sự đã được áp dụng
+        boolean reserved = command.getReference() != null
+                && processedStockCommandRepository.findById(command.getReference())
+                .filter(reserve -> reserve.getType() == ProcessedStockCommand.CommandType.RESERVE)
+                .isPresent();
+        if (!reserved) {
+            throw new StockRejectedException("Không có lượng hàng đã giữ để hoàn lại: " + command.getReference());
+        }
+        productService.releaseStock(command.getItems());
+    }
+
+    private boolean markProcessed(String commandId, ProcessedStockCommand.CommandType type, String reference) {
+        if (processedStockCommandRepository.existsById(commandId)) {
+            return false;
+        }
+        processedStockCommandRepository.saveAndFlush(
+                new ProcessedStockCommand(commandId, type, reference, LocalDateTime.now()));
+        return true;
+    }
+}
@@ -0,0 +1,276 @@
+package com.soa.product.service;
+
+import com.soa.product.dto.StockHoldDTO;
+import com.soa.product.dto.StockHoldRequest;
+import com.soa.product.dto.StockItemRequest;
+import com.soa.product.model.StockHold;
+import com.soa.product.model.StockHoldItem;
+import com.soa.product.repository.StockHoldRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Giữ hàng có thời hạn cho các lượt thanh toán chưa hoàn tất.
+ * <p>
+ * Tạo lượt giữ hàng trừ tồn kho ngay (như reserveStock), nên số lượng còn bán được trên Product đã phản ánh
+ * các lượt giữ hàng mà không cần quét chúng. Lượt giữ hàng sau đó được xác nhận (hàng đã bán) hoặc hoàn lại;
+ * nếu không, timing wheel báo hết hạn và hàng được trả về stock theo lô. Tổng lượng đang giữ theo sản phẩm
+ * được duy trì trong bộ nhớ và dựng lại khi khởi động.
+ */
+@Service
+@Slf4j
+public class StockHoldService {
+    private final StockHoldRepository stockHoldRepository;
+    private final ProductService productService;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration defaultTtl;
+    private final Duration maxTtl;
+    private final int expiryBatchSize;
+    private final HierarchicalTimingWheel wheel;
+    private final Map<Long, AtomicLong> heldByProduct = new ConcurrentHashMap<>();
+    private final Counter expiredCounter;
+
+    public StockHoldService(StockHoldRepository stockHoldRepository,
+                            ProductService productService,
+                            TransactionTemplate transactionTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${product.holds.default-ttl:15m}") Duration defaultTtl,
+                            @Value("${product.holds.max-ttl:24h}") Duration maxTtl,
+                            @Value("${product.holds.tick-ms:1000}") long tickMs,
+                            @Value("${product.holds.wheel-size:64}") int wheelSize,
+                            @Value("${product.holds.expiry-batch-size:500}") int expiryBatchSize) {
+        this.stockHoldRepository = stockHoldRepository;
+        this.productService = productService;
+        this.transactionTemplate = transactionTemplate;
+        this.defaultTtl = defaultTtl;
+        this.maxTtl = maxTtl;
+        this.expiryBatchSize = expiryBatchSize;
+        this.wheel = new HierarchicalTimingWheel(tickMs, wheelSize, System.currentTimeMillis());
+        this.expiredCounter = Counter.builder("product.holds.expired")
+                .description("Stock holds returned to stock after expiring")
+                .register(meterRegistry);
+        Gauge.builder("product.holds.scheduled", wheel, HierarchicalTimingWheel::size)
+                .description("Hold expiries tracked by the timing wheel, including holds already settled")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void recover() {
+        long afterId = 0;
+        int recovered = 0;
+        while (true) {
+            List<Object[]> expiries = stockHoldRepository.findExpiries(StockHold.Status.ACTIVE, afterId,
+                    Limit.of(expiryBatchSize));
+            for (Object[] row : expiries) {
+                wheel.add((Long) row[0], toEpochMilli((LocalDateTime) row[1]));
+            }
+            recovered += expiries.size();
+            if (expiries.size() < expiryBatchSize) {
+                break;
+            }
+            afterId = (Long) expiries.get(expiries.size() - 1)[0];
+        }
+        for (Object[] row : stockHoldRepository.sumQuantitiesByProduct(StockHold.Status.ACTIVE)) {
+            heldByProduct.put((Long) row[0], new AtomicLong((Long) row[1]));
+        }
+        if (recovered > 0) {
+            log.info("Recovered {} active stock holds", recovered);
+        }
+    }
+
+    public StockHoldDTO hold(StockHoldRequest request) {
+        Duration ttl = request.getTtlSeconds() != null ? Duration.ofSeconds(request.getTtlSeconds()) : defaultTtl;
+        if (ttl.compareTo(maxTtl) > 0) {
+            throw new RuntimeException("Thời gian giữ hàng vượt quá giới hạn " + maxTtl.toSeconds() + " giây");
+        }
+        try {
+            return transactionTemplate.execute(tx -> {
+                if (request.getReference() != null) {
+                    StockHold existing = stockHoldRepository.findByReference(request.getReference()).orElse(null);
+                    if (existing != null) {
+                        return toDTO(existing);
+                    }
+                }
+                return createHold(request, ttl);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Request cùng reference chạy song song đã tạo lượt giữ hàng trước: phần trừ kho của request này
+            // đã rollback cùng transaction, trả về lượt giữ hàng đã thắng
+            if (request.getReference() == null) {
+                throw e;
+            }
+            return transactionTemplate.execute(tx -> stockHoldRepository.findByReference(request.getReference())
+                    .map(this::toDTO)
+                    .orElseThrow(() -> e));
+        }
+    }
+
+    private StockHoldDTO createHold(StockHoldRequest request, Duration ttl) {
+        // Trừ tồn kho ngay: hoặc giữ được tất cả sản phẩm, hoặc không gì cả
+        productService.reserveStock(request.getItems());
+
+        StockHold hold = new StockHold();
+        hold.setReference(request.getReference());
+        hold.setStatus(StockHold.Status.ACTIVE);
+        hold.setCreatedAt(LocalDateTime.now());
+        hold.setExpiresAt(hold.getCreatedAt().plus(ttl));
+        for (StockItemRequest item : request.getItems()) {
+            hold.getItems().add(new StockHoldItem(null, hold, item.getProductId(), item.getQuantity()));
+        }
+        // Flush ngay để vi phạm unique reference lộ ra ở đây thay vì lúc commit
+        StockHold saved = stockHoldRepository.saveAndFlush(hold);
+
+        long expiresAtMs = toEpochMilli(saved.getExpiresAt());
+        afterCommit(() -> {
+            adjustHeld(saved.getItems(), 1);
+            wheel.add(saved.getId(), expiresAtMs);
+        });
+        return toDTO(saved);
+    }
+
+    @Transactional(readOnly = true)
+    public StockHoldDTO getHold(Long id) {
+        return stockHoldRepository.findById(id)
+                .map(this::toDTO)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy lượt giữ hàng với ID: " + id));
+    }
+
+    @Transactional
+    public StockHoldDTO commit(Long id) {
+        StockHold hold = lock(id);
+        if (hold.getStatus() == StockHold.Status.COMMITTED) {
+            return toDTO(hold);
+        }
+        if (hold.getStatus() != StockHold.Status.ACTIVE || hold.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new RuntimeException("Lượt giữ hàng đã hết hạn hoặc đã được hoàn lại (ID: " + id + ")");
+        }
+        // Tồn kho đã bị trừ khi giữ hàng nên xác nhận chỉ đổi trạng thái
+        hold.setStatus(StockHold.Status.COMMITTED);
+        afterCommit(() -> adjustHeld(hold.getItems(), -1));
+        return toDTO(hold);
+    }
+
+    @Transactional
+    public StockHoldDTO release(Long id) {
+        StockHold hold = lock(id);
+        if (hold.getStatus() == StockHold.Status.COMMITTED) {
+            throw new RuntimeException("Lượt giữ hàng đã được xác nhận, không thể hoàn lại (ID: " + id + ")");
+        }
+        if (hold.getStatus() == StockHold.Status.ACTIVE) {
+            hold.setStatus(StockHold.Status.RELEASED);
+            productService.releaseStock(toItems(hold.getItems()));
+            afterCommit(() -> adjustHeld(hold.getItems(), -1));
+        }
+        return toDTO(hold);
+    }
+
+    // Số lượng đang bị giữ của một sản phẩm, đọc từ bộ đếm trong bộ nhớ
+    public long held(Long productId) {
+        AtomicLong held = heldByProduct.get(productId);
+        return held == null ? 0 : held.get();
+    }
+
+    @Scheduled(fixedDelayString = "${product.holds.tick-ms:1000}")
+    public void expireDueHolds() {
+        List<Long> due = wheel.advance(System.currentTimeMillis());
+        int expired = 0;
+        for (int from = 0; from < due.size(); from += expiryBatchSize) {
+            List<Long> batch = due.subList(from, Math.min(from + expiryBatchSize, due.size()));
+            try {
+                Integer count = transactionTemplate.execute(tx -> expireBatch(batch));
+                expired += count == null ? 0 : count;
+            } catch (RuntimeException e) {
+                // Đưa lại vào wheel để thử lần sau thay vì để hàng bị giữ mãi
+                log.warn("Failed to expire {} stock holds: {}", batch.size(), e.getMessage());
+                long retryAt = System.currentTimeMillis();
+                batch.forEach(id -> wheel.add(id, retryAt));
+            }
+        }
+        if (expired > 0) {
+            expiredCounter.increment(expired);
+            log.info("Expired {} stock holds", expired);
+        }
+    }
+
+    // Trả hàng của cả lô về stock bằng một lần releaseStock (các sản phẩm được gộp số lượng)
+    private int expireBatch(List<Long> ids) {
+        List<StockHold> holds = stockHoldRepository.findForUpdate(ids, StockHold.Status.ACTIVE);
+        if (holds.isEmpty()) {
+            return 0;
+        }
+        List<StockHoldItem> items = new ArrayList<>();
+        for (StockHold hold : holds) {
+            hold.setStatus(StockHold.Status.EXPIRED);
+            items.addAll(hold.getItems());
+        }
+        productService.releaseStock(toItems(items));
+        afterCommit(() -> adjustHeld(items, -1));
+        return holds.size();
+    }
+
+    private StockHold lock(Long id) {
+        return stockHoldRepository.findForUpdate(id)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy lượt giữ hàng với ID: " + id));
+    }
+
+    private void adjustHeld(List<StockHoldItem> items, int sign) {
+        for (StockHoldItem item : items) {
+            heldByProduct.computeIfAbsent(item.getProductId(), productId -> new AtomicLong())
+                    .addAndGet((long) sign * item.getQuantity());
+        }
+    }
+
+    // Bộ đếm trong bộ nhớ và timing wheel chỉ thay đổi khi transaction đã commit
+    private void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private List<StockItemRequest> toItems(List<StockHoldItem> items) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (StockHoldItem item : items) {
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        return quantities.entrySet().stream()
+                .map(entry -> new StockItemRequest(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    private StockHoldDTO toDTO(StockHold hold) {
+        List<StockItemRequest> items = hold.getItems().stream()
+                .map(item -> new StockItemRequest(item.getProductId(), item.getQuantity()))
+                .collect(Collectors.toList());
+        return new StockHoldDTO(hold.getId(), hold.getReference(), hold.getStatus(), hold.getExpiresAt(), items);
+    }
+
+    private static long toEpochMilli(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,11 @@
+package com.soa.product.service;
+
+/**
+ * Lệnh tồn kho bị từ chối vì lý do nghiệp vụ (không đủ hàng, không có sản phẩm, không có hàng đã giữ để hoàn).
+ * Gửi lại cùng lệnh sẽ không đổi kết quả, khác với lỗi hạ tầng như timeout khóa hay mất kết nối DB.
+ */
+public class StockRejectedException extends RuntimeException {
+    public StockRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,76 @@
+package com.soa.product.service;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Tồn kho của một sản phẩm được chia thành nhiều ô (stripe) để các luồng trừ hàng bằng CAS trên ô khác nhau,
+ * không tranh chấp một biến duy nhất. Mỗi ô không bao giờ âm nên tổng không bao giờ bán vượt.
+ * Khi không ô nào đủ hàng (phần cuối của tồn kho), các ô được gom lại và chia đều dưới khóa.
+ */
+class StripedStockCounter {
+    // Các ô cách nhau 64 byte để không nằm chung cache line
+    private static final int PADDING = 16;
+
+    private final AtomicIntegerArray cells;
+    private final int stripes;
+
+    StripedStockCounter(int stripes, int initial) {
+        this.stripes = stripes;
+        this.cells = new AtomicIntegerArray(stripes * PADDING);
+        distribute(initial);
+    }
+
+    boolean tryAcquire(int quantity) {
+        int start = home();
+        for (int i = 0; i < stripes; i++) {
+            int index = ((start + i) % stripes) * PADDING;
+            int current;
+            while ((current = cells.get(index)) >= quantity) {
+                if (cells.compareAndSet(index, current, current - quantity)) {
+                    return true;
+                }
+            }
+        }
+        return rebalanceAndAcquire(quantity);
+    }
+
+    void release(int quantity) {
+        cells.addAndGet(home() * PADDING, quantity);
+    }
+
+    int available() {
+        int total = 0;
+        for (int i = 0; i < stripes; i++) {
+            total += cells.get(i * PADDING);
+        }
+        return total;
+    }
+
+    // Lấy hết hàng còn lại ra khỏi bộ đếm (khi tắt chế độ bán nhanh)
+    synchronized int drain() {
+        int total = 0;
+        for (int i = 0; i < stripes; i++) {
+            total += cells.getAndSet(i * PADDING, 0);
+        }
+        return total;
+    }
+
+    private synchronized boolean rebalanceAndAcquire(int quantity) {
+        int total = drain();
+        boolean acquired = total >= quantity;
+        distribute(acquired ? total - quantity : total);
+        return acquired;
+    }
+
+    private void distribute(int total) {
+        int base = total / stripes;
+        int remainder = total % stripes;
+        for (int i = 0; i < stripes; i++) {
+            cells.addAndGet(i * PADDING, base + (i < remainder ? 1 : 0));
+        }
+    }
+
+    private int home() {
+        return (int) (Thread.currentThread().getId() % stripes);
+    }
+}
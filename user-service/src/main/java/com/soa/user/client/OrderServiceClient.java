@@ -0,0 +1,37 @@
+package com.soa.user.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+
+@Component
+@Slf4j
+public class OrderServiceClient {
+    private final DiscoveryClient discoveryClient;
+    private final RestTemplate restTemplate;
+
+    public OrderServiceClient(DiscoveryClient discoveryClient, RestTemplateBuilder restTemplateBuilder) {
+        this.discoveryClient = discoveryClient;
+        this.restTemplate = restTemplateBuilder
+                .setConnectTimeout(Duration.ofSeconds(1))
+                .setReadTimeout(Duration.ofSeconds(2))
+                .build();
+    }
+
+    // Mỗi instance của Order Service có cache riêng nên phải gửi tới tất cả, không qua load balancer
+    public void evictUserFromCaches(Long userId) {
+        for (ServiceInstance instance : discoveryClient.getInstances("order-service")) {
+            try {
+                restTemplate.delete(instance.getUri() + "/internal/cache/users/" + userId);
+            } catch (Exception e) {
+                log.warn("Could not evict user {} from order-service cache at {}: {}",
+                        userId, instance.getUri(), e.getMessage());
+            }
+        }
+    }
+}
@@ -1,24 +1,58 @@
 package com.soa.user.controller;
 
 import com.soa.user.dto.UserDTO;
+import com.soa.user.service.UserBulkImportService;
 import com.soa.user.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/users")
 @RequiredArgsConstructor
 public class UserController {
+    private static final int MAX_IDS = 1000;
+
     private final UserService userService;
+    private final UserBulkImportService userBulkImportService;
 
+    // fields=id,name chỉ select và trả về các trường được yêu cầu
     @GetMapping
-    public ResponseEntity<List<UserDTO>> getAllUsers() {
-        return ResponseEntity.ok(userService.getAllUsers());
+    public ResponseEntity<?> getUsers(@RequestParam(required = false) String fields,
+                                      @PageableDefault(size = 20, sort = "id") Pageable pageable) {
+        try {
+            return fields == null
+                    ? pageResponse(userService.getUsers(pageable))
+                    : pageResponse(userService.getUserFields(fields, pageable));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Lấy nhiều user bằng một truy vấn IN, ví dụ ?ids=1,2,3&fields=id,name
+    @GetMapping(params = "ids")
+    public ResponseEntity<?> getUsersByIds(@RequestParam List<Long> ids,
+                                           @RequestParam(required = false) String fields) {
+        if (ids.size() > MAX_IDS) {
+            return ResponseEntity.badRequest().body("Tối đa " + MAX_IDS + " ID mỗi lần");
+        }
+        try {
+            return fields == null
+                    ? ResponseEntity.ok(userService.getUsersByIds(ids))
+                    : ResponseEntity.ok(userService.getUserFieldsByIds(ids, fields));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @GetMapping("/{id}")
@@ -41,6 +75,16 @@ public class UserController {
         }
     }
 
+    // Kết quả từng dòng được trả về dạng NDJSON trong lúc nhập, không đợi hết file
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"},
+            produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> importUsers(InputStream body) {
+        StreamingResponseBody results = out -> userBulkImportService.importUsers(body, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(results);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<?> updateUser(@PathVariable Long id, 
                                         @Valid @RequestBody UserDTO userDTO) {
@@ -61,7 +105,12 @@ public class UserController {
             return ResponseEntity.notFound().build();
         }
     }
-}
-
-
 
+    // Body vẫn là mảng JSON như trước, thông tin phân trang trả về qua header
+    private ResponseEntity<List<?>> pageResponse(Page<?> page) {
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(page.getTotalElements()))
+                .header("X-Total-Pages", String.valueOf(page.getTotalPages()))
+                .body(page.getContent());
+    }
+}
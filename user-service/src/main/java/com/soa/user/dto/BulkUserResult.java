@@ -0,0 +1,21 @@
+package com.soa.user.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Kết quả nhập của một dòng trong POST /api/users/bulk
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkUserResult {
+    private long index;
+    private Status status;
+    private Long id;
+    private String email;
+    private String message;
+
+    public enum Status {
+        CREATED, DUPLICATE, INVALID, FAILED
+    }
+}
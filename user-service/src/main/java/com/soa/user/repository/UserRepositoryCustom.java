@@ -0,0 +1,17 @@
+package com.soa.user.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface UserRepositoryCustom {
+    /**
+     * Chỉ select các cột được yêu cầu; mỗi dòng là map tên trường -> giá trị theo đúng thứ tự của {@code fields}.
+     */
+    List<Map<String, Object>> findFieldsByIdIn(Collection<Long> ids, List<String> fields);
+
+    Page<Map<String, Object>> findFields(List<String> fields, Pageable pageable);
+}
@@ -0,0 +1,70 @@
+package com.soa.user.repository;
+
+import com.soa.user.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@RequiredArgsConstructor
+public class UserRepositoryImpl implements UserRepositoryCustom {
+    private final EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findFieldsByIdIn(Collection<Long> ids, List<String> fields) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<User> user = query.from(User.class);
+        query.multiselect(selections(user, fields)).where(user.get("id").in(ids));
+        return toMaps(entityManager.createQuery(query).getResultList(), fields);
+    }
+
+    @Override
+    public Page<Map<String, Object>> findFields(List<String> fields, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<User> user = query.from(User.class);
+        query.multiselect(selections(user, fields)).orderBy(QueryUtils.toOrders(pageable.getSort(), user, cb));
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize());
+        }
+
+        CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
+        countQuery.select(cb.count(countQuery.from(User.class)));
+        long total = entityManager.createQuery(countQuery).getSingleResult();
+        return new PageImpl<>(toMaps(typedQuery.getResultList(), fields), pageable, total);
+    }
+
+    private List<Selection<?>> selections(Root<User> user, List<String> fields) {
+        return fields.stream()
+                .<Selection<?>>map(field -> user.get(field).alias(field))
+                .collect(Collectors.toList());
+    }
+
+    private List<Map<String, Object>> toMaps(List<Tuple> tuples, List<String> fields) {
+        return tuples.stream()
+                .map(tuple -> {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    for (String field : fields) {
+                        row.put(field, tuple.get(field));
+                    }
+                    return row;
+                })
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,208 @@
+package com.soa.user.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.soa.user.dto.BulkUserResult;
+import com.soa.user.dto.UserDTO;
+import com.soa.user.model.User;
+import com.soa.user.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Nhập user hàng loạt từ CRM. Đầu vào là mảng JSON hoặc NDJSON các UserDTO, được đọc tuần tự; kết quả của từng
+ * dòng được ghi ra dạng NDJSON sau mỗi chunk.
+ * <p>
+ * Email trùng trong chính file nhập được phát hiện bằng một tập trong bộ nhớ; email đã có trong DB được kiểm tra
+ * cho cả chunk bằng một truy vấn IN trên unique index. Các user mới của chunk được ghi trong một transaction
+ * theo JDBC batch. Nếu chunk vi phạm unique index (user được tạo đồng thời), chunk được ghi lại từng dòng.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserBulkImportService {
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final UserRepository userRepository;
+    private final Validator validator;
+
+    @Value("${user.bulk.chunk-size:1000}")
+    private int chunkSize;
+
+    public void importUsers(InputStream in, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        ObjectWriter writer = objectMapper.writerFor(BulkUserResult.class);
+        Map<BulkUserResult.Status, Long> counts = new EnumMap<>(BulkUserResult.Status.class);
+        Set<String> seenEmails = new HashSet<>();
+        List<BulkUserResult> results = new ArrayList<>();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        long received = 0;
+
+        try (MappingIterator<UserDTO> records = objectMapper.readerFor(UserDTO.class).readValues(in)) {
+            while (records.hasNextValue()) {
+                long index = received++;
+                try {
+                    UserDTO record = records.nextValue();
+                    String problem = validate(record);
+                    if (problem != null) {
+                        results.add(result(index, BulkUserResult.Status.INVALID, null, record.getEmail(), problem));
+                    } else if (!seenEmails.add(record.getEmail())) {
+                        results.add(result(index, BulkUserResult.Status.DUPLICATE, null, record.getEmail(),
+                                "Email trùng với một dòng trước trong file: " + record.getEmail()));
+                    } else {
+                        chunk.add(new Row(index, record));
+                    }
+                } catch (RuntimeException e) {
+                    results.add(result(index, BulkUserResult.Status.INVALID, null, null, e.getMessage()));
+                }
+                if (chunk.size() == chunkSize) {
+                    results.addAll(insertChunk(chunk));
+                    chunk.clear();
+                    write(results, writer, out, counts);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            results.addAll(insertChunk(chunk));
+        }
+        write(results, writer, out, counts);
+
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        long created = counts.getOrDefault(BulkUserResult.Status.CREATED, 0L);
+        log.info("Bulk user import finished: {} received, {} in {} ms ({} rows/s)",
+                received, counts, elapsedMs, Math.round(created * 1000.0 / elapsedMs));
+    }
+
+    private List<BulkUserResult> insertChunk(List<Row> rows) {
+        List<BulkUserResult> results = new ArrayList<>(rows.size());
+        Set<String> existing = new HashSet<>(userRepository.findExistingEmails(
+                rows.stream().map(row -> row.record.getEmail()).collect(Collectors.toList())));
+        List<Row> fresh = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            if (existing.contains(row.record.getEmail())) {
+                results.add(result(row.index, BulkUserResult.Status.DUPLICATE, null, row.record.getEmail(),
+                        "Email đã tồn tại: " + row.record.getEmail()));
+            } else {
+                fresh.add(row);
+            }
+        }
+        if (fresh.isEmpty()) {
+            return results;
+        }
+
+        try {
+            List<User> users = transactionTemplate.execute(tx -> {
+                List<User> persisted = new ArrayList<>(fresh.size());
+                for (Row row : fresh) {
+                    User user = toEntity(row.record);
+                    entityManager.persist(user);
+                    persisted.add(user);
+                }
+                // flush để Hibernate gửi các INSERT theo JDBC batch, clear để persistence context không phình ra
+                entityManager.flush();
+                entityManager.clear();
+                return persisted;
+            });
+            for (int i = 0; i < fresh.size(); i++) {
+                Row row = fresh.get(i);
+                results.add(result(row.index, BulkUserResult.Status.CREATED, users.get(i).getId(),
+                        row.record.getEmail(), null));
+            }
+        } catch (DataIntegrityViolationException | ConstraintViolationException e) {
+            // EntityManager không qua exception translation của Spring nên lỗi unique index là của Hibernate
+            log.warn("Bulk user chunk starting at record {} hit a concurrent insert, retrying row by row",
+                    fresh.get(0).index);
+            fresh.forEach(row -> results.add(insertOne(row)));
+        } catch (RuntimeException e) {
+            log.warn("Bulk user chunk starting at record {} failed: {}", fresh.get(0).index, e.getMessage());
+            fresh.forEach(row -> results.add(result(row.index, BulkUserResult.Status.FAILED, null,
+                    row.record.getEmail(), "Lỗi khi ghi chunk: " + e.getMessage())));
+        }
+        return results;
+    }
+
+    private BulkUserResult insertOne(Row row) {
+        try {
+            User user = transactionTemplate.execute(tx -> {
+                User created = toEntity(row.record);
+                entityManager.persist(created);
+                entityManager.flush();
+                return created;
+            });
+            return result(row.index, BulkUserResult.Status.CREATED, user.getId(), row.record.getEmail(), null);
+        } catch (DataIntegrityViolationException | ConstraintViolationException e) {
+            return result(row.index, BulkUserResult.Status.DUPLICATE, null, row.record.getEmail(),
+                    "Email đã tồn tại: " + row.record.getEmail());
+        } catch (RuntimeException e) {
+            return result(row.index, BulkUserResult.Status.FAILED, null, row.record.getEmail(), e.getMessage());
+        }
+    }
+
+    private String validate(UserDTO record) {
+        if (record == null) {
+            return "Dòng dữ liệu rỗng";
+        }
+        if (record.getEmail() == null || record.getEmail().isBlank()) {
+            return "Email không được để trống";
+        }
+        if (record.getAddress() == null) {
+            return "Địa chỉ không được để trống";
+        }
+        if (record.getPhone() == null) {
+            return "Số điện thoại không được để trống";
+        }
+        // Dùng lại các ràng buộc khai báo trên entity (tên, định dạng email)
+        Set<ConstraintViolation<User>> violations = validator.validate(toEntity(record));
+        return violations.isEmpty() ? null : violations.iterator().next().getMessage();
+    }
+
+    private void write(List<BulkUserResult> results, ObjectWriter writer, OutputStream out,
+                       Map<BulkUserResult.Status, Long> counts) throws IOException {
+        results.sort(Comparator.comparingLong(BulkUserResult::getIndex));
+        for (BulkUserResult result : results) {
+            counts.merge(result.getStatus(), 1L, Long::sum);
+            out.write(writer.writeValueAsBytes(result));
+            out.write('\n');
+        }
+        out.flush();
+        results.clear();
+    }
+
+    private BulkUserResult result(long index, BulkUserResult.Status status, Long id, String email, String message) {
+        return new BulkUserResult(index, status, id, email, message);
+    }
+
+    private User toEntity(UserDTO dto) {
+        User user = new User();
+        user.setName(dto.getName());
+        user.setEmail(dto.getEmail());
+        user.setAddress(dto.getAddress());
+        user.setPhone(dto.getPhone());
+        return user;
+    }
+
+    private record Row(long index, UserDTO record) {
+    }
+}
@@ -1,26 +1,58 @@
 package com.soa.user.service;
 
+import com.soa.user.client.OrderServiceClient;
 import com.soa.user.dto.UserDTO;
 import com.soa.user.model.User;
 import com.soa.user.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
+    // Các trường có thể chọn qua tham số fields, trùng tên với UserDTO
+    private static final List<String> FIELDS = List.of("id", "name", "email", "address", "phone");
+
     private final UserRepository userRepository;
+    private final OrderServiceClient orderServiceClient;
+
+    @Transactional(readOnly = true)
+    public Page<UserDTO> getUsers(Pageable pageable) {
+        return userRepository.findAll(pageable).map(this::toDTO);
+    }
+
+    // Chỉ các cột trong fields được select và trả về; id luôn có để client ghép kết quả
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> getUserFields(String fields, Pageable pageable) {
+        checkSort(pageable.getSort());
+        return userRepository.findFields(parseFields(fields), pageable);
+    }
 
-    public List<UserDTO> getAllUsers() {
-        return userRepository.findAll().stream()
+    @Transactional(readOnly = true)
+    public List<UserDTO> getUsersByIds(Collection<Long> ids) {
+        return userRepository.findAllById(ids).stream()
                 .map(this::toDTO)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getUserFieldsByIds(Collection<Long> ids, String fields) {
+        return userRepository.findFieldsByIdIn(ids, parseFields(fields));
+    }
+
     public UserDTO getUserById(Long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy user với ID: " + id));
@@ -33,7 +65,12 @@ public class UserService {
             throw new RuntimeException("Email đã tồn tại: " + userDTO.getEmail());
         }
         User user = toEntity(userDTO);
-        user = userRepository.save(user);
+        try {
+            // Flush ngay để unique index chặn hai request tạo cùng email đồng thời vượt qua bước kiểm tra trên
+            user = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("Email đã tồn tại: " + userDTO.getEmail());
+        }
         return toDTO(user);
     }
 
@@ -62,6 +99,38 @@ public class UserService {
             throw new RuntimeException("Không tìm thấy user với ID: " + id);
         }
         userRepository.deleteById(id);
+
+        // Báo cho Order Service xóa user khỏi cache sau khi giao dịch đã commit
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                orderServiceClient.evictUserFromCaches(id);
+            }
+        });
+    }
+
+    private List<String> parseFields(String fields) {
+        List<String> selected = new ArrayList<>();
+        selected.add("id");
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty() || selected.contains(name)) {
+                continue;
+            }
+            if (!FIELDS.contains(name)) {
+                throw new RuntimeException("Trường không hợp lệ: " + name);
+            }
+            selected.add(name);
+        }
+        return selected;
+    }
+
+    private void checkSort(Sort sort) {
+        for (Sort.Order order : sort) {
+            if (!FIELDS.contains(order.getProperty())) {
+                throw new RuntimeException("Không thể sắp xếp theo trường: " + order.getProperty());
+            }
+        }
     }
 
     private UserDTO toDTO(User user) {